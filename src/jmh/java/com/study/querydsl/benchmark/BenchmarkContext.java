@@ -0,0 +1,58 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.QuerydslApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 벤치마크용 스프링 컨텍스트(임베디드 H2)와 대량 데이터 준비
+public final class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+    private static final int INSERT_BATCH = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    // 반복 호출이 검색 결과 캐시에서 끝나지 않도록 캐시는 끈다
+    public static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("spring.cache.type=none")
+                .run(args);
+    }
+
+    // JPA 를 거치지 않고 JDBC 배치로 넣는다. id 는 시퀀스와 겹치지 않게 큰 값부터 사용
+    public static void seed(ConfigurableApplicationContext context, int rows) {
+        seed(context, rows, TEAM_COUNT);
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int rows, int teamCount) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        long teamIdBase = 1_000_000_000L;
+        long memberIdBase = 2_000_000_000L;
+
+        List<Object[]> teams = new ArrayList<>();
+        for (int i = 0; i < teamCount; i++) {
+            teams.add(new Object[]{teamIdBase + i, "team" + i});
+        }
+        jdbc.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+        List<Object[]> members = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < rows; i++) {
+            members.add(new Object[]{memberIdBase + i, "member" + i, i % 100, teamIdBase + (i % teamCount)});
+            if (members.size() == INSERT_BATCH) {
+                jdbc.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+                members.clear();
+            }
+        }
+        if (!members.isEmpty()) {
+            jdbc.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+        }
+    }
+}
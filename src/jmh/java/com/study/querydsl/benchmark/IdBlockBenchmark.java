@@ -0,0 +1,52 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.service.MemberIngestService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// block 크기별 insert/sec (결과 단위 ops/s = 저장한 회원 수/s)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdBlockBenchmark {
+
+    private static final int ROWS_PER_INVOCATION = 10_000;
+
+    @Param({"1", "50", "1000"})
+    int blockSize;
+
+    ConfigurableApplicationContext context;
+    MemberIngestService memberIngestService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("--spring.jpa.properties.querydsl.id.block_size=" + blockSize);
+        memberIngestService = context.getBean(MemberIngestService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public Object insert() {
+        return memberIngestService.ingest(IntStream.range(0, ROWS_PER_INVOCATION)
+                .mapToObj(i -> new Member("member" + i, i % 100)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberSearchPredicates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 조건 -> Predicate 조립 비용 비교 (DB 없이 조립만 측정)
+ *
+ * nullSafeBuilder : 예외로 null 을 거르던 기존 MemberJpaRepository 방식
+ * booleanBuilder  : if + BooleanBuilder
+ * whereParams     : where(a, b, c, d) 다중 파라미터
+ * assembler       : MemberSearchPredicates
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PredicateBenchmark {
+
+    // none : 조건 없음, partial : teamName + ageGoe, all : 네 조건 모두
+    @Param({"none", "partial", "all"})
+    String shape;
+
+    MemberSearchCondition condition;
+
+    @Setup
+    public void setUp() {
+        condition = new MemberSearchCondition();
+        if (!"none".equals(shape)) {
+            condition.setTeamName("teamB");
+            condition.setAgeGoe(20);
+        }
+        if ("all".equals(shape)) {
+            condition.setUsername("member4");
+            condition.setAgeLoe(40);
+        }
+    }
+
+    @Benchmark
+    public Predicate nullSafeBuilder() {
+        return legacyUsernameEq(condition.getUsername())
+                .and(legacyTeamNameEq(condition.getTeamName()))
+                .and(nullSafe(() -> member.age.goe(condition.getAgeGoe())))
+                .and(nullSafe(() -> member.age.loe(condition.getAgeLoe())));
+    }
+
+    @Benchmark
+    public Predicate booleanBuilder() {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (StringUtils.hasText(condition.getUsername())) {
+            builder.and(member.username.eq(condition.getUsername()));
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            builder.and(team.name.eq(condition.getTeamName()));
+        }
+        if (condition.getAgeGoe() != null) {
+            builder.and(member.age.goe(condition.getAgeGoe()));
+        }
+        if (condition.getAgeLoe() != null) {
+            builder.and(member.age.loe(condition.getAgeLoe()));
+        }
+        return builder;
+    }
+
+    @Benchmark
+    public Predicate[] whereParams() {
+        return new Predicate[]{
+                MemberSearchPredicates.usernameEq(condition.getUsername()),
+                MemberSearchPredicates.teamNameEq(condition.getTeamName()),
+                MemberSearchPredicates.ageGoe(condition.getAgeGoe()),
+                MemberSearchPredicates.ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    @Benchmark
+    public Predicate assembler() {
+        return MemberSearchPredicates.of(condition);
+    }
+
+    private static BooleanBuilder legacyUsernameEq(String username) {
+        if (!StringUtils.hasText(username)) {
+            return new BooleanBuilder();
+        }
+        return nullSafe(() -> member.username.eq(username));
+    }
+
+    private static BooleanBuilder legacyTeamNameEq(String teamName) {
+        if (!StringUtils.hasText(teamName)) {
+            return new BooleanBuilder();
+        }
+        return nullSafe(() -> team.name.eq(teamName));
+    }
+
+    private static BooleanBuilder nullSafe(Supplier<BooleanExpression> supplier) {
+        try {
+            return new BooleanBuilder(supplier.get());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return new BooleanBuilder();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.dto.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * Projections.bean / fields / constructor / @QueryProjection 비교
+ *
+ * MemberTeamDto 는 기본 생성자가 없어 bean, fields 방식은 사용할 수 없다.
+ * ./gradlew jmh -PjmhIncludes=ProjectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, rows);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberDtoBean() {
+        return queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberDtoFields() {
+        return queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberDtoConstructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberDtoQueryProjection() {
+        return queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<UserDto> userDtoBean() {
+        return queryFactory
+                .select(Projections.bean(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<UserDto> userDtoFields() {
+        return queryFactory
+                .select(Projections.fields(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<UserDto> userDtoConstructor() {
+        return queryFactory
+                .select(Projections.constructor(UserDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberTeamDtoConstructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberTeamDto.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberTeamDtoQueryProjection() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+}
@@ -0,0 +1,106 @@
+package com.study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.codec.MemberColumnsCodec;
+import com.study.querydsl.controller.MemberTeamRowsHttpMessageConverter;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// /v1/members 응답 포맷별 인코딩/디코딩 시간 (DB 없이 메모리의 row 로 측정)
+// 응답 크기는 setUp 에서 출력한다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    private static final int TEAM_COUNT = 100;
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    ObjectMapper objectMapper;
+    MemberTeamRowsHttpMessageConverter jsonConverter;
+    MemberTeamRows memberTeamRows;
+    byte[] json;
+    byte[] columns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        jsonConverter = new MemberTeamRowsHttpMessageConverter(objectMapper);
+        List<MemberTeamDto> dtos = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % TEAM_COUNT + 1;
+            dtos.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        memberTeamRows = MemberTeamRows.of(dtos);
+        json = encodeJson();
+        columns = encodeColumns();
+        System.out.printf("%nrows=%d json=%d bytes, columns=%d bytes%n", rows, json.length, columns.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonConverter.write(memberTeamRows, MediaType.APPLICATION_JSON, new BufferMessage(out));
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeColumns() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnsCodec.encode(memberTeamRows, out);
+        return out.toByteArray();
+    }
+
+    // MemberTeamDto 는 기본 생성자가 없으므로 트리로 읽는다
+    @Benchmark
+    public Object decodeJson() throws IOException {
+        return objectMapper.readTree(json);
+    }
+
+    @Benchmark
+    public Object decodeColumns() throws IOException {
+        return MemberColumnsCodec.decode(new ByteArrayInputStream(columns));
+    }
+
+    private static final class BufferMessage implements HttpOutputMessage {
+
+        private final OutputStream body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        BufferMessage(OutputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
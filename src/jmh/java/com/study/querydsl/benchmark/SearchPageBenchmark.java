@@ -0,0 +1,62 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+// searchPageComplex 순차 실행 vs content/count 동시 실행 지연시간 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchPageBenchmark {
+
+    @Param({"1000000", "3000000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean concurrentCount;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("--querydsl.paging.concurrent-count=" + concurrentCount);
+        BenchmarkContext.seed(context, rows);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(20);
+        // 첫 페이지가 아니고 꽉 찬 페이지라 count 쿼리를 생략할 수 없다
+        pageable = PageRequest.of(10, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+}
@@ -0,0 +1,116 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.TeamWithMembersDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.TeamQueryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 페이지 + 소속 회원 조회 비교
+ *
+ * batchedIn : 팀 페이지 조회 후 회원 in 쿼리 (TeamQueryRepository)
+ * fetchJoin : 컬렉션 fetch join. 페이징을 메모리에서 한다 (HHH000104)
+ * lazy      : 팀 페이지 조회 후 팀마다 회원 지연 로딩 (N+1)
+ *
+ * 1차 캐시에 남은 엔티티를 재사용하지 않도록 매번 새 트랜잭션에서 실행한다.
+ * ./gradlew jmh -PjmhIncludes=TeamMembersBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TeamMembersBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"100", "1000"})
+    int teams;
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory queryFactory;
+    TeamQueryRepository teamQueryRepository;
+    TransactionTemplate readOnlyTransaction;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, ROWS, teams);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        teamQueryRepository = context.getBean(TeamQueryRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        // 첫 페이지가 아니어서 fetch join 은 앞의 팀 회원까지 모두 읽는다
+        pageable = PageRequest.of(2, pageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<TeamWithMembersDto> batchedIn() {
+        return readOnlyTransaction.execute(status -> teamQueryRepository.findTeamsWithMembers(pageable));
+    }
+
+    @Benchmark
+    public List<TeamWithMembersDto> fetchJoin() {
+        return readOnlyTransaction.execute(status -> toDto(queryFactory
+                .selectFrom(team).distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch()));
+    }
+
+    @Benchmark
+    public List<TeamWithMembersDto> lazy() {
+        return readOnlyTransaction.execute(status -> toDto(queryFactory
+                .selectFrom(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch()));
+    }
+
+    private static List<TeamWithMembersDto> toDto(List<Team> teams) {
+        List<TeamWithMembersDto> result = new ArrayList<>(teams.size());
+        for (Team t : teams) {
+            TeamWithMembersDto dto = new TeamWithMembersDto(t.getId(), t.getName());
+            for (Member m : t.getMembers()) {
+                dto.getMembers().add(new MemberDto(m.getUsername(), m.getAge()));
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+}
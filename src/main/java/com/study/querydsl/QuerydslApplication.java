@@ -1,13 +1,18 @@
 package com.study.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.instrument.InstrumentedJPAQueryFactory;
+import com.study.querydsl.instrument.QuerydslMetrics;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 
 import javax.persistence.EntityManager;
 
+@EnableCaching
 @SpringBootApplication
 public class QuerydslApplication {
 
@@ -17,8 +22,9 @@ public class QuerydslApplication {
 
     // JPAQueryFactory 빈으로 등록 가능
     // JPAQueryFactory 동시성 문제는 EntityManager에 의존한다
+    // 실행 시간, row 수를 micrometer 로 기록하는 factory
     @Bean
-    JPAQueryFactory jpaQueryFactory(EntityManager em){
-        return new JPAQueryFactory(em);
+    JPAQueryFactory jpaQueryFactory(EntityManager em, QuerydslMetrics querydslMetrics, ApplicationEventPublisher publisher){
+        return new InstrumentedJPAQueryFactory(em, querydslMetrics, publisher);
     }
 }
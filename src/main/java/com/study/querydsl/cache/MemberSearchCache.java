@@ -0,0 +1,52 @@
+package com.study.querydsl.cache;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 회원 검색 결과 캐시 (memberSearch)
+ *
+ * 크기, TTL 은 spring.cache.caffeine.spec 으로 설정한다.
+ * Member, Team 이 바뀌면(save, changeTeam, querydsl bulk update/delete) 트랜잭션이 끝난 뒤 전부 비운다.
+ * 쓰기 트랜잭션 안의 조회는 아직 커밋되지 않은 데이터를 볼 수 있으므로 캐시를 사용하지 않는다.
+ */
+@Slf4j
+@Component(MemberSearchCache.BEAN_NAME)
+public class MemberSearchCache {
+
+    public static final String BEAN_NAME = "memberSearchCache";
+    public static final String NAME = "memberSearch";
+    // @Cacheable(condition = ...) 에서 사용
+    public static final String CACHEABLE = "@" + BEAN_NAME + ".isCacheable()";
+
+    private final CacheManager cacheManager;
+
+    public MemberSearchCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public boolean isCacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    // 트랜잭션이 끝난 뒤 한번 온다. 롤백이어도 트랜잭션 중에 캐시에 들어간 값이 있을 수 있으므로 커밋 여부와 상관없이 비운다
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.concerns(Member.class) && !event.concerns(Team.class)) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(NAME);
+        if (cache != null) {
+            log.debug("member search cache cleared by {}", event);
+            cache.clear();
+        }
+    }
+}
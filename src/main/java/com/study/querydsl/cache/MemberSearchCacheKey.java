@@ -0,0 +1,17 @@
+package com.study.querydsl.cache;
+
+import lombok.Value;
+
+// 값이 없는 조건(null, 빈 문자열)은 모두 null 로 맞춘 검색 캐시 key
+@Value
+public class MemberSearchCacheKey {
+
+    String method;
+    String username;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+    long offset;
+    int pageSize;
+    String sort;
+}
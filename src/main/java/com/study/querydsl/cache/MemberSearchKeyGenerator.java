@@ -0,0 +1,39 @@
+package com.study.querydsl.cache;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * (MemberSearchCondition[, Pageable]) 파라미터를 받는 검색 메서드용 key
+ * 검색 조건과 같은 기준(StringUtils.hasText)으로 값이 없는 조건을 null 로 정규화한다
+ */
+@Component(MemberSearchKeyGenerator.NAME)
+public class MemberSearchKeyGenerator implements KeyGenerator {
+
+    public static final String NAME = "memberSearchKeyGenerator";
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        MemberSearchCondition condition = (MemberSearchCondition) params[0];
+        Pageable pageable = params.length > 1 && params[1] != null ? (Pageable) params[1] : Pageable.unpaged();
+        return keyOf(method.getDeclaringClass().getSimpleName() + "." + method.getName(), condition, pageable);
+    }
+
+    // @Cacheable 을 거치지 않고 같은 캐시를 쓰는 곳에서 사용 (method 는 "클래스이름.메서드이름")
+    public static MemberSearchCacheKey keyOf(String method, MemberSearchCondition condition, Pageable pageable) {
+        return new MemberSearchCacheKey(
+                method,
+                StringUtils.hasText(condition.getUsername()) ? condition.getUsername() : null,
+                StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                pageable.isPaged() ? pageable.getOffset() : -1,
+                pageable.isPaged() ? pageable.getPageSize() : -1,
+                pageable.getSort().toString());
+    }
+}
@@ -0,0 +1,259 @@
+package com.study.querydsl.codec;
+
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 검색 결과(MemberTeamDto 목록)를 컬럼 단위로 묶은 바이너리 포맷
+ *
+ * <pre>
+ * int    magic "MCOL", byte version
+ * varint 회원 수(n), varint 팀 수(t)
+ * t 개   { varlong teamId, string teamName }          팀 사전
+ * n 개   varlong zigzag(memberId - 이전 memberId)     id 컬럼
+ * n 개   varint  zigzag(age)                          age 컬럼
+ * n 개   varint  팀 코드 (0 = 팀 없음, k = 사전의 k-1 번째 팀)
+ * n 개   string  username
+ * string = varint (UTF-8 바이트 수 + 1, 0 = null) + UTF-8 바이트
+ * </pre>
+ *
+ * 컬럼을 모두 모은 뒤에 쓰므로 결과를 primitive 배열로 한번 버퍼링한다 (dto 는 만들지 않는다).
+ */
+public final class MemberColumnsCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.querydsl.member-columns";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    private static final int MAGIC = 0x4D434F4C;
+    private static final int VERSION = 1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private MemberColumnsCodec() {
+    }
+
+    public static void encode(MemberTeamRows rows, OutputStream out) throws IOException {
+        Columns columns = new Columns();
+        rows.forEach(columns::add);
+
+        // 응답 스트림은 닫지 않는다
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        writeVarInt(data, columns.size);
+        writeVarInt(data, columns.teamIds.size());
+        for (int k = 0; k < columns.teamIds.size(); k++) {
+            writeVarLong(data, columns.teamIds.get(k));
+            writeString(data, columns.teamNames.get(k));
+        }
+        long previousId = 0;
+        for (int i = 0; i < columns.size; i++) {
+            writeVarLong(data, zigzag(columns.memberIds[i] - previousId));
+            previousId = columns.memberIds[i];
+        }
+        for (int i = 0; i < columns.size; i++) {
+            writeVarInt(data, zigzag(columns.ages[i]));
+        }
+        for (int i = 0; i < columns.size; i++) {
+            writeVarInt(data, columns.teamCodes[i]);
+        }
+        for (int i = 0; i < columns.size; i++) {
+            writeString(data, columns.usernames[i]);
+        }
+        data.flush();
+    }
+
+    public static List<MemberTeamDto> decode(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("member columns 포맷이 아닙니다");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("지원하지 않는 member columns 버전: " + version);
+        }
+        int size = readCount(data);
+        int teamCount = readCount(data);
+        // 사전에는 회원이 쓰는 팀만 들어간다
+        if (teamCount > size) {
+            throw new IOException("팀 수가 회원 수보다 많습니다: " + teamCount + " > " + size);
+        }
+        // 개수는 믿지 않고 실제로 읽은 만큼만 배열을 키운다 (잘못된 입력으로 큰 배열을 만들지 않는다)
+        long[] teamIds = new long[Math.min(teamCount, INITIAL_CAPACITY)];
+        String[] teamNames = new String[teamIds.length];
+        for (int k = 0; k < teamCount; k++) {
+            if (k == teamIds.length) {
+                teamIds = Arrays.copyOf(teamIds, grow(k, teamCount));
+                teamNames = Arrays.copyOf(teamNames, teamIds.length);
+            }
+            teamIds[k] = readVarLong(data);
+            teamNames[k] = readString(data);
+        }
+        long[] memberIds = new long[Math.min(size, INITIAL_CAPACITY)];
+        long previousId = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == memberIds.length) {
+                memberIds = Arrays.copyOf(memberIds, grow(i, size));
+            }
+            previousId += unzigzag(readVarLong(data));
+            memberIds[i] = previousId;
+        }
+        // id 컬럼을 size 개 읽었으므로 나머지 컬럼은 size 만큼 잡아도 된다
+        int[] ages = new int[size];
+        for (int i = 0; i < size; i++) {
+            ages[i] = unzigzag(readVarInt(data));
+        }
+        int[] teamCodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            teamCodes[i] = readCount(data);
+            if (teamCodes[i] > teamCount) {
+                throw new IOException("잘못된 팀 코드: " + teamCodes[i]);
+            }
+        }
+        List<MemberTeamDto> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int code = teamCodes[i];
+            result.add(new MemberTeamDto(
+                    memberIds[i],
+                    readString(data),
+                    ages[i],
+                    code == 0 ? null : teamIds[code - 1],
+                    code == 0 ? null : teamNames[code - 1]));
+        }
+        return result;
+    }
+
+    // row 를 컬럼별 배열에 모은다. 팀은 teamId 로 사전에 한번만 넣는다
+    private static final class Columns {
+
+        private int size;
+        private long[] memberIds = new long[INITIAL_CAPACITY];
+        private int[] ages = new int[INITIAL_CAPACITY];
+        private int[] teamCodes = new int[INITIAL_CAPACITY];
+        private String[] usernames = new String[INITIAL_CAPACITY];
+        private final Map<Long, Integer> teamCodeById = new HashMap<>();
+        private final List<Long> teamIds = new ArrayList<>();
+        private final List<String> teamNames = new ArrayList<>();
+
+        void add(long memberId, String username, int age, Long teamId, String teamName) {
+            if (size == memberIds.length) {
+                int capacity = size * 2;
+                memberIds = Arrays.copyOf(memberIds, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamCodes = Arrays.copyOf(teamCodes, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+            }
+            memberIds[size] = memberId;
+            ages[size] = age;
+            teamCodes[size] = teamId == null ? 0 : teamCodeById.computeIfAbsent(teamId, id -> {
+                teamIds.add(id);
+                teamNames.add(teamName);
+                return teamIds.size();
+            });
+            usernames[size] = username;
+            size++;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readCount(in);
+        if (length == 0) {
+            return null;
+        }
+        // readNBytes 는 읽은 만큼만 버퍼를 키운다
+        byte[] bytes = in.readNBytes(length - 1);
+        if (bytes.length != length - 1) {
+            throw new EOFException();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value >>> 32 != 0) {
+            throw new IOException("varint 범위 초과: " + value);
+        }
+        return (int) value;
+    }
+
+    // 개수, 길이는 int 범위의 음이 아닌 값이어야 한다
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = readVarInt(in);
+        if (count < 0) {
+            throw new IOException("잘못된 개수: " + (count & 0xFFFFFFFFL));
+        }
+        return count;
+    }
+
+    private static int grow(int length, int max) {
+        return (int) Math.min(max, length * 2L);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 가 너무 깁니다");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.study.querydsl.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 처음 FIRST_CHUNK_BYTES 바이트는 메모리에 모았다가 넘치면 응답 본문으로 내보낸다
+ *
+ * 그 전에는 응답에 아무것도 쓰지 않으므로 상태 코드가 커밋되지 않는다.
+ * 첫 chunk 안에서 조회가 실패하면 버퍼를 버리고 예외를 던져 일반 에러 응답(500)이 나가게 한다.
+ */
+final class FirstChunkOutputStream extends OutputStream {
+
+    static final int FIRST_CHUNK_BYTES = 64 * 1024;
+
+    private final OutputStream body;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    FirstChunkOutputStream(OutputStream body) {
+        this.body = body;
+    }
+
+    // 응답 본문에 쓰기 시작했으면 true (상태 코드를 바꿀 수 없다)
+    boolean isSpilled() {
+        return buffer == null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (buffer == null) {
+            body.write(b);
+            return;
+        }
+        buffer.write(b);
+        spillIfFull();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (buffer == null) {
+            body.write(b, off, len);
+            return;
+        }
+        buffer.write(b, off, len);
+        spillIfFull();
+    }
+
+    // 버퍼링 중에는 내보내지 않는다
+    @Override
+    public void flush() throws IOException {
+        if (buffer == null) {
+            body.flush();
+        }
+    }
+
+    // 끝까지 썼으면 남은 버퍼를 내보낸다. 응답 스트림은 닫지 않는다
+    void finish() throws IOException {
+        if (buffer != null) {
+            buffer.writeTo(body);
+            buffer = null;
+        }
+        body.flush();
+    }
+
+    private void spillIfFull() throws IOException {
+        if (buffer.size() >= FIRST_CHUNK_BYTES) {
+            buffer.writeTo(body);
+            buffer = null;
+        }
+    }
+}
@@ -2,14 +2,15 @@ package com.study.querydsl.controller;
 
 import com.study.querydsl.entity.Member;
 import com.study.querydsl.entity.Team;
+import com.study.querydsl.service.MemberIngestService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.util.stream.IntStream;
 
 @Profile("local")
 @Component
@@ -25,21 +26,23 @@ public class InitMember {
 
     @Component
     static class InitMemberService{
-        @PersistenceContext
-        private EntityManager em;
+        @Autowired
+        private MemberIngestService memberIngestService;
 
-        @Transactional
+        @Value("${member.init.count:100}")
+        private int memberCount;
+
+        // 팀도 ingest 의 트랜잭션에서 저장된다
         public void init(){
             Team teamA = new Team("teamA");
             Team teamB = new Team("teamB");
 
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for(int i=0;i<100;i++){
-                Team selectedTeam = i%2 ==0 ? teamA : teamB;
-                em.persist(new Member("member"+i,i,selectedTeam));
-            }
+            // team.getMembers() 에 쌓이지 않게 setTeam 사용
+            memberIngestService.ingest(IntStream.range(0, memberCount).mapToObj(i -> {
+                Member member = new Member("member" + i, i);
+                member.setTeam(i % 2 == 0 ? teamA : teamB);
+                return member;
+            }));
         }
     }
 }
@@ -0,0 +1,44 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.codec.MemberColumnsCodec;
+import com.study.querydsl.dto.MemberTeamRows;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Accept: application/vnd.querydsl.member-columns 요청에 MemberTeamRows 를 MemberColumnsCodec 포맷으로 쓴다
+ * 대량으로 읽어가는 배치에서 JSON 인코딩/파싱 비용을 줄이기 위해 사용한다.
+ */
+@Component
+public class MemberColumnsHttpMessageConverter extends AbstractHttpMessageConverter<MemberTeamRows> {
+
+    public MemberColumnsHttpMessageConverter() {
+        super(MemberColumnsCodec.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberTeamRows.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MemberTeamRows readInternal(Class<? extends MemberTeamRows> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberTeamRows 는 응답에만 사용한다", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(MemberTeamRows rows, HttpOutputMessage outputMessage) throws IOException {
+        MemberColumnsCodec.encode(rows, outputMessage.getBody());
+    }
+}
@@ -1,28 +1,53 @@
 package com.study.querydsl.controller;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.Predicate;
+import com.study.querydsl.codec.MemberColumnsCodec;
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import com.study.querydsl.entity.Member;
 import com.study.querydsl.repository.MemberJpaRepository;
 import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.snapshot.MemberSnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.querydsl.binding.QuerydslPredicate;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberSnapshot memberSnapshot;
 
-    @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+    // querydsl.snapshot.enabled 이면 메모리 스냅샷에서 찾는다
+    // dto 목록을 만들지 않고 MemberTeamRowsHttpMessageConverter 가 row 를 바로 JSON 으로 쓴다
+    // Accept 가 MemberColumnsCodec.MEDIA_TYPE 이면 컬럼 바이너리로 응답한다 (Accept 가 없으면 JSON)
+    // 스냅샷을 못 쓰면 memberSearch 캐시를 보고, 없으면 검색 JPQL 템플릿으로 DB 에서 스트리밍한다 (MemberJpaRepository.searchRows)
+    // 스트리밍 도중 DB 가 실패하면 첫 chunk 안이면 500, 그 뒤면 본문이 정상 JSON 으로 끝나지 않는다
+    @GetMapping(value = "/v1/members",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MemberColumnsCodec.MEDIA_TYPE_VALUE})
+    public MemberTeamRows searchMemberV1(MemberSearchCondition condition){
+        return memberSnapshot.rows(condition);
     }
 
     @GetMapping("/v2/members")
@@ -34,4 +59,55 @@ public class MemberController {
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
         return memberRepository.searchPageComplex(condition,pageable);
     }
+
+    // content 와 전체 건수를 한번의 쿼리로 조회
+    @GetMapping("/v5/members")
+    public Page<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable){
+        return memberRepository.searchPageWindow(condition,pageable);
+    }
+
+    // 전체 건수 없이 다음 페이지 여부(last)만 응답한다 (count 쿼리 없음)
+    @GetMapping("/members/slice")
+    public Slice<MemberTeamDto> searchMemberSlice(MemberSearchCondition condition, Pageable pageable){
+        return memberRepository.searchSlice(condition,pageable);
+    }
+
+    // id 만으로 offset 페이징 후 해당 id 만 조회 (깊은 페이지 번호로 바로 이동하는 경우)
+    @GetMapping("/v6/members")
+    public Page<MemberTeamDto> searchMemberV6(MemberSearchCondition condition, Pageable pageable){
+        return memberRepository.searchPageDeferred(condition,pageable);
+    }
+
+    // username, age, team.name 만 바인딩한다 (MemberRepository.customize). 부담이 큰 조건은 400 으로 거부
+    @GetMapping("/members/predicate")
+    public Slice<MemberTeamDto> searchMemberByPredicate(@QuerydslPredicate(root = Member.class) Predicate predicate,
+                                                        Pageable pageable){
+        return memberRepository.searchByPredicate(predicate, pageable);
+    }
+
+    // keyset 페이징 : 응답의 nextCursor 를 다음 요청의 cursor 로 넘긴다
+    @GetMapping("/v4/members")
+    public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size){
+        return memberRepository.searchByCursor(condition, cursor, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    // 한 줄에 한 건씩 NDJSON 으로 바로 써서 결과 크기와 상관없이 메모리 사용량을 일정하게 유지
+    @GetMapping(value = "/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamMembers(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            memberJpaRepository.searchStream(condition, dto -> {
+                try {
+                    generator.writeObject(dto);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package com.study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberTeamRows;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * MemberTeamRows 를 MemberTeamDto 목록과 같은 JSON 배열로 쓴다
+ *
+ * 필드 이름은 미리 인코딩해 두고(SerializedString) row 를 받는 즉시 JsonGenerator 로 쓰므로
+ * 리플렉션, dto, 중간 List 가 없다. 필드 순서와 null 처리는 ObjectMapper 의 MemberTeamDto 직렬화와 같다.
+ * 빈으로 등록하면 스프링 부트가 기본 Jackson 컨버터보다 앞에 추가한다.
+ *
+ * 첫 chunk 는 FirstChunkOutputStream 에 모으므로 그 안에서 실패하면 500 으로 응답한다.
+ * 응답을 내보낸 뒤에 실패하면 배열을 닫지 않고 ERROR_MARKER 를 붙인 다음 예외를 다시 던진다.
+ * 잘린 본문이 200 과 함께 정상 JSON 처럼 보이지 않게 하기 위해서다 (파싱이 실패하고 연결은 비정상 종료된다).
+ */
+@Component
+public class MemberTeamRowsHttpMessageConverter extends AbstractHttpMessageConverter<MemberTeamRows> {
+
+    private static final SerializableString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString TEAM_ID = new SerializedString("teamId");
+    private static final SerializableString TEAM_NAME = new SerializedString("teamName");
+
+    // 닫히지 않은 배열 뒤에 붙으므로 어떤 JSON 파서도 정상 결과로 읽지 않는다
+    static final String ERROR_MARKER = ",{\"error\":\"incomplete response\"}";
+
+    private final ObjectMapper objectMapper;
+
+    public MemberTeamRowsHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberTeamRows.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MemberTeamRows readInternal(Class<? extends MemberTeamRows> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberTeamRows 는 응답에만 사용한다", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(MemberTeamRows rows, HttpOutputMessage outputMessage) throws IOException {
+        // 응답 스트림은 닫지 않는다 (MappingJackson2HttpMessageConverter 와 같다)
+        FirstChunkOutputStream out = new FirstChunkOutputStream(outputMessage.getBody());
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        try {
+            writeRows(rows, generator);
+        } catch (IOException | RuntimeException e) {
+            if (out.isSpilled()) {
+                writeErrorMarker(generator, e);
+            }
+            throw e;
+        }
+        out.finish();
+    }
+
+    private static void writeErrorMarker(JsonGenerator generator, Exception cause) {
+        try {
+            generator.writeRaw(ERROR_MARKER);
+            generator.flush();
+        } catch (IOException e) {
+            // 클라이언트가 이미 끊겼으면 원래 예외만 던진다
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void writeRows(MemberTeamRows rows, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        rows.forEach((memberId, username, age, teamId, teamName) -> {
+            generator.writeStartObject();
+            generator.writeFieldName(MEMBER_ID);
+            generator.writeNumber(memberId);
+            generator.writeFieldName(USERNAME);
+            generator.writeString(username);
+            generator.writeFieldName(AGE);
+            generator.writeNumber(age);
+            generator.writeFieldName(TEAM_ID);
+            if (teamId == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(teamId);
+            }
+            generator.writeFieldName(TEAM_NAME);
+            generator.writeString(teamName);
+            generator.writeEndObject();
+        });
+        generator.writeEndArray();
+        generator.flush();
+    }
+}
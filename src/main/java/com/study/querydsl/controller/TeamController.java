@@ -0,0 +1,22 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.TeamWithMembersDto;
+import com.study.querydsl.repository.TeamQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamQueryRepository teamQueryRepository;
+
+    // 팀 페이지 조회 + 회원 in 쿼리
+    @GetMapping("/teams")
+    public Page<TeamWithMembersDto> teams(Pageable pageable){
+        return teamQueryRepository.findTeamsWithMembers(pageable);
+    }
+}
@@ -0,0 +1,57 @@
+package com.study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * primary / replica 커넥션 풀과 라우팅 DataSource
+ *
+ * querydsl.datasource.routing.enabled=true 일 때만 등록되고, 그 외에는 spring.datasource 하나를 사용한다.
+ * querydsl.datasource.primary.*, querydsl.datasource.replica.* 는 HikariCP 설정 (jdbc-url, username, maximum-pool-size ...)
+ *
+ * 복제 지연이 있으므로 방금 커밋한 데이터를 다른 readOnly 트랜잭션에서 바로 읽지 못할 수 있다.
+ * 쓰기 트랜잭션 안에서 호출한 readOnly 메서드는 바깥 트랜잭션에 참여하므로 primary 를 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("querydsl.datasource.primary")
+    HikariDataSource primaryDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @ConfigurationProperties("querydsl.datasource.replica")
+    HikariDataSource replicaDataSource() {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                          @Qualifier("replicaDataSource") DataSource replica) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicationRoutingDataSource.Route.PRIMARY, primary);
+        targets.put(ReplicationRoutingDataSource.Route.REPLICA, replica);
+
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
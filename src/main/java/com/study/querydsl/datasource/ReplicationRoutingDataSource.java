@@ -0,0 +1,22 @@
+package com.study.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * readOnly 트랜잭션은 replica, 그 외(쓰기 트랜잭션, 트랜잭션 밖)는 primary 로 보낸다
+ *
+ * 트랜잭션의 readOnly 여부는 커넥션을 얻는 시점에 정해져 있어야 하므로
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 때 커넥션을 얻도록 한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
@@ -0,0 +1,48 @@
+package com.study.querydsl.dto;
+
+import com.study.querydsl.repository.support.InvalidSearchRequestException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// keyset 페이징 커서 : 마지막으로 읽은 (age, member_id)
+// 클라이언트에는 불투명한 문자열로만 노출한다
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    private static final String DELIMITER = ":";
+
+    private final int age;
+    private final Long memberId;
+
+    public static MemberCursor of(MemberTeamDto last) {
+        return new MemberCursor(last.getAge(), last.getMemberId());
+    }
+
+    // 커서가 없으면 첫 페이지, 해석할 수 없으면 InvalidSearchRequestException (400)
+    public static MemberCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(DELIMITER);
+            if (parts.length != 2) {
+                throw new InvalidSearchRequestException("잘못된 커서 입니다: " + cursor);
+            }
+            return new MemberCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            // Base64 디코딩 실패, NumberFormatException 포함
+            throw new InvalidSearchRequestException("잘못된 커서 입니다: " + cursor, e);
+        }
+    }
+
+    public String encode() {
+        String raw = age + DELIMITER + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,22 @@
+package com.study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberCursorPage {
+
+    private final List<MemberTeamDto> content;
+    // 다음 페이지가 없으면 null
+    private final String nextCursor;
+
+    public MemberCursorPage(List<MemberTeamDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
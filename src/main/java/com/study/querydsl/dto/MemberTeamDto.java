@@ -1,16 +1,17 @@
 package com.study.querydsl.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
-import lombok.Data;
+import lombok.Value;
 
-@Data
+// 검색 결과 캐시(memberSearch)에서 여러 요청이 같은 인스턴스를 공유하므로 불변
+@Value
 public class MemberTeamDto {
 
-    private Long memberId;
-    private String username;
-    private int age;
-    private Long teamId;
-    private String teamName;
+    Long memberId;
+    String username;
+    int age;
+    Long teamId;
+    String teamName;
 
     @QueryProjection
     public MemberTeamDto(Long memberId, String username, int age, Long teamId, String teamName) {
@@ -0,0 +1,30 @@
+package com.study.querydsl.dto;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * MemberTeamDto 와 같은 모양의 결과를 한 row 씩 넘기는 응답 본문
+ *
+ * 컨트롤러가 반환하면 MemberTeamRowsHttpMessageConverter 가 row 를 받는 즉시 JSON 으로 쓴다.
+ * DB 에서 읽는 경우 forEach 가 호출될 때 조회하므로 dto 나 List 를 만들지 않는다.
+ */
+@FunctionalInterface
+public interface MemberTeamRows {
+
+    void forEach(RowHandler handler) throws IOException;
+
+    @FunctionalInterface
+    interface RowHandler {
+        void row(long memberId, String username, int age, Long teamId, String teamName) throws IOException;
+    }
+
+    // 이미 만들어진 결과 (캐시, 테스트)
+    static MemberTeamRows of(List<MemberTeamDto> dtos) {
+        return handler -> {
+            for (MemberTeamDto dto : dtos) {
+                handler.row(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName());
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TeamWithMembersDto {
+
+    private Long teamId;
+    private String teamName;
+    private List<MemberDto> members = new ArrayList<>();
+
+    @QueryProjection
+    public TeamWithMembersDto(Long teamId, String teamName) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
@@ -1,7 +1,11 @@
 package com.study.querydsl.entity;
 
+import com.study.querydsl.entity.id.BlockSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -11,7 +15,10 @@ import javax.persistence.Id;
 @Getter @Setter
 public class Hello {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "hello_seq")
+    @GenericGenerator(name = "hello_seq", strategy = BlockSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hello_seq"))
     private Long id;
 
 
@@ -1,16 +1,30 @@
 package com.study.querydsl.entity;
 
+import com.study.querydsl.entity.event.EntityChangeListener;
+import com.study.querydsl.entity.id.BlockSequenceGenerator;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"), // ageGoe, ageLoe, 커서 정렬 순서
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
+@EntityListeners(EntityChangeListener.class)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username","age"}) // 연관관계 참조 안하는 것이 좋음
 public class Member {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = BlockSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
     private String username;
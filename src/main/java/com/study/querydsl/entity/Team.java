@@ -1,19 +1,35 @@
 package com.study.querydsl.entity;
 
+import com.study.querydsl.entity.event.EntityChangeListener;
+import com.study.querydsl.entity.id.BlockSequenceGenerator;
 import lombok.*;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Team.CACHE_REGION)
+@EntityListeners(EntityChangeListener.class)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 
 public class Team {
 
-    @Id @GeneratedValue
+    // 2차 캐시 region. application.conf 의 caffeine.jcache 에 같은 이름으로 설정한다
+    public static final String CACHE_REGION = "team";
+
+    @Id
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = BlockSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
 
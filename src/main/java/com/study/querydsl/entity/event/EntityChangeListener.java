@@ -0,0 +1,40 @@
+package com.study.querydsl.entity.event;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// @EntityListeners 로 등록. Hibernate 가 스프링 빈으로 생성한다 (SpringBeanContainer)
+// 변경은 트랜잭션 단위로 모아서 EntityChanges 가 한번에 발행한다
+@Component
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public EntityChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        EntityChanges.changed(publisher, Hibernate.getClass(entity), idOf(entity));
+    }
+
+    private static Long idOf(Object entity) {
+        if (entity instanceof Member) {
+            return ((Member) entity).getId();
+        }
+        if (entity instanceof Team) {
+            return ((Team) entity).getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.study.querydsl.entity.event;
+
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 트랜잭션 하나에서 바뀐 엔티티 타입과 id (트랜잭션이 끝날 때 한번 발행)
+ *
+ * 엔티티 인스턴스는 담지 않는다. 바뀐 값이 필요하면 id 로 다시 읽는다.
+ * bulk update/delete 처럼 어떤 row 가 바뀌었는지 모르거나 id 가 너무 많으면 그 타입의 id 는 모른다(isBulk).
+ * 커밋/롤백이 끝난 뒤(트랜잭션이 없으면 바로) 발행되므로 받는 쪽은 @EventListener 로 받는다.
+ */
+@ToString
+public class EntityChangedEvent {
+
+    // 타입 -> 바뀐 id. value 가 null 이면 id 를 모른다
+    private final Map<Class<?>, Set<Long>> changes;
+    private final boolean committed;
+
+    EntityChangedEvent(Map<Class<?>, Set<Long>> changes, boolean committed) {
+        this.changes = changes;
+        this.committed = committed;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public boolean concerns(Class<?> type) {
+        for (Class<?> changed : changes.keySet()) {
+            if (type.isAssignableFrom(changed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isBulk(Class<?> type) {
+        for (Map.Entry<Class<?>, Set<Long>> change : changes.entrySet()) {
+            if (type.isAssignableFrom(change.getKey()) && change.getValue() == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // isBulk(type) 이면 의미 없다
+    public Set<Long> ids(Class<?> type) {
+        for (Map.Entry<Class<?>, Set<Long>> change : changes.entrySet()) {
+            if (type.isAssignableFrom(change.getKey()) && change.getValue() != null) {
+                return Collections.unmodifiableSet(change.getValue());
+            }
+        }
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,89 @@
+package com.study.querydsl.entity.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 트랜잭션 안의 엔티티 변경을 모았다가 트랜잭션이 끝나면 EntityChangedEvent 하나로 발행한다
+ *
+ * 트랜잭션마다 synchronization 하나만 등록하고 엔티티 인스턴스는 붙잡지 않는다.
+ * 타입별 id 가 MAX_IDS 를 넘으면 id 는 버리고 bulk 로 본다 (대량 저장에서 메모리가 커지지 않게).
+ * 트랜잭션이 없으면 바로 발행한다.
+ */
+public final class EntityChanges implements TransactionSynchronization {
+
+    static final int MAX_IDS = 10_000;
+
+    private final ApplicationEventPublisher publisher;
+    private final Map<Class<?>, Set<Long>> changes = new HashMap<>();
+
+    private EntityChanges(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    public static void changed(ApplicationEventPublisher publisher, Class<?> entityType, Long id) {
+        record(publisher, entityType, id);
+    }
+
+    // 영속성 컨텍스트를 거치지 않은 update/delete
+    public static void bulk(ApplicationEventPublisher publisher, Class<?> entityType) {
+        record(publisher, entityType, null);
+    }
+
+    private static void record(ApplicationEventPublisher publisher, Class<?> entityType, Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            EntityChanges immediate = new EntityChanges(publisher);
+            immediate.add(entityType, id);
+            immediate.publish(true);
+            return;
+        }
+        EntityChanges changes = (EntityChanges) TransactionSynchronizationManager.getResource(EntityChanges.class);
+        if (changes == null) {
+            changes = new EntityChanges(publisher);
+            TransactionSynchronizationManager.bindResource(EntityChanges.class, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        changes.add(entityType, id);
+    }
+
+    private void add(Class<?> entityType, Long id) {
+        if (changes.containsKey(entityType) && changes.get(entityType) == null) {
+            return;
+        }
+        Set<Long> ids = changes.computeIfAbsent(entityType, type -> new HashSet<>());
+        if (id == null || ids.size() >= MAX_IDS) {
+            changes.put(entityType, null);
+        } else {
+            ids.add(id);
+        }
+    }
+
+    private void publish(boolean committed) {
+        if (!changes.isEmpty()) {
+            publisher.publishEvent(new EntityChangedEvent(changes, committed));
+        }
+    }
+
+    // REQUIRES_NEW 등으로 트랜잭션이 멈추면 같이 빠졌다가 돌아온다
+    @Override
+    public void suspend() {
+        TransactionSynchronizationManager.unbindResource(EntityChanges.class);
+    }
+
+    @Override
+    public void resume() {
+        TransactionSynchronizationManager.bindResource(EntityChanges.class, this);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(EntityChanges.class);
+        publish(status == STATUS_COMMITTED);
+    }
+}
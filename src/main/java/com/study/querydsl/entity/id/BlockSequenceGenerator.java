@@ -0,0 +1,32 @@
+package com.study.querydsl.entity.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * 시퀀스를 block 크기만큼 증가시키며 구간 단위로 id 를 예약하는 generator
+ *
+ * block 크기는 querydsl.id.block_size (spring.jpa.properties.querydsl.id.block_size) 로 설정하고
+ * 엔티티별로 increment_size 파라미터를 주면 그 값을 쓴다.
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "com.study.querydsl.entity.id.BlockSequenceGenerator";
+    public static final String BLOCK_SIZE_SETTING = "querydsl.id.block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_BLOCK_SIZE);
+        params.putIfAbsent(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.setProperty(OPT_PARAM, LockFreeBlockOptimizer.class.getName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
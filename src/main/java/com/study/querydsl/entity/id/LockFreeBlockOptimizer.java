@@ -0,0 +1,78 @@
+package com.study.querydsl.entity.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 시퀀스 값 하나로 [value, value + incrementSize) 구간을 예약하고 메모리에서 나눠준다 (pooled-lo 방식)
+ *
+ * 구간 안의 할당은 AtomicLong 증가만 하므로 락이 없다.
+ * 구간이 다 떨어지면 그걸 본 스레드가 시퀀스를 호출해 새 구간을 CAS 로 교체한다.
+ * 여러 스레드가 동시에 새 구간을 받아오면 교체에 실패한 구간은 버려지므로 id 에 빈 구간이 생길 수 있다.
+ */
+public class LockFreeBlockOptimizer implements Optimizer {
+
+    private final Class returnClass;
+    private final int incrementSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    // OptimizerFactory 가 (Class, int) 생성자로 만든다
+    public LockFreeBlockOptimizer(Class returnClass, int incrementSize) {
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("incrementSize는 1 이상이어야 합니다");
+        }
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.limit) {
+                return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass).initialize(id).makeValue();
+            }
+
+            IntegralDataTypeHolder sourceValue = callback.getNextValue();
+            lastSourceValue = sourceValue.copy();
+            long start = sourceValue.makeValue().longValue();
+            current.compareAndSet(block, new Block(start, start + incrementSize));
+        }
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    private static final class Block {
+
+        static final Block EMPTY = new Block(0, 0);
+
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.study.querydsl.instrument;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.study.querydsl.entity.event.EntityChanges;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.EntityManager;
+
+public class InstrumentedJPADeleteClause extends JPADeleteClause {
+
+    private final Class<?> entityType;
+    private final QuerydslMetrics metrics;
+    private final ApplicationEventPublisher publisher;
+
+    public InstrumentedJPADeleteClause(EntityManager em, EntityPath<?> entity, QuerydslMetrics metrics,
+                                       ApplicationEventPublisher publisher) {
+        super(em, entity);
+        this.entityType = entity.getType();
+        this.metrics = metrics;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public long execute() {
+        long start = System.nanoTime();
+        boolean success = false;
+        long rows = 0;
+        try {
+            rows = super.execute();
+            success = true;
+            // 영속성 컨텍스트를 거치지 않으므로 entity listener 대신 직접 알린다
+            EntityChanges.bulk(publisher, entityType);
+            return rows;
+        } finally {
+            metrics.record("execute", toString(), System.nanoTime() - start, rows, success);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.study.querydsl.instrument;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// fetch, fetchOne, stream 실행 시간과 row 수를 기록하는 JPAQuery
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QuerydslMetrics metrics;
+    // 실행할 때 직렬화한 JPQL 을 다시 만들지 않고 재사용
+    private String jpql;
+
+    public InstrumentedJPAQuery(EntityManager em, QuerydslMetrics metrics) {
+        super(em);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow) {
+        JPQLSerializer serializer = super.serialize(forCountRow);
+        this.jpql = serializer.toString();
+        return serializer;
+    }
+
+    @Override
+    public List<T> fetch() {
+        long start = System.nanoTime();
+        boolean success = false;
+        List<T> result = null;
+        try {
+            result = super.fetch();
+            success = true;
+            return result;
+        } finally {
+            metrics.record("fetch", jpql, System.nanoTime() - start, result != null ? result.size() : 0, success);
+        }
+    }
+
+    @Override
+    public T fetchOne() throws NonUniqueResultException {
+        long start = System.nanoTime();
+        boolean success = false;
+        T result = null;
+        try {
+            result = super.fetchOne();
+            success = true;
+            return result;
+        } finally {
+            metrics.record("fetchOne", jpql, System.nanoTime() - start, result != null ? 1 : 0, success);
+        }
+    }
+
+    // stream 은 닫힐 때 소비한 row 수와 전체 시간을 기록한다
+    @Override
+    public Stream<T> stream() {
+        long start = System.nanoTime();
+        Stream<T> stream;
+        try {
+            stream = super.stream();
+        } catch (RuntimeException e) {
+            metrics.record("stream", jpql, System.nanoTime() - start, 0, false);
+            throw e;
+        }
+        AtomicLong rows = new AtomicLong();
+        return stream
+                .peek(row -> rows.incrementAndGet())
+                .onClose(() -> metrics.record("stream", jpql, System.nanoTime() - start, rows.get(), true));
+    }
+}
@@ -0,0 +1,43 @@
+package com.study.querydsl.instrument;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.EntityManager;
+
+// select, selectFrom, from 은 모두 query() 를 거치므로 query() 만 바꾸면 조회 쿼리 전체가 계측된다
+// update, delete 는 실행 후 해당 타입을 bulk 변경으로 기록한다 (EntityChanges)
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final QuerydslMetrics metrics;
+    private final ApplicationEventPublisher publisher;
+
+    public InstrumentedJPAQueryFactory(EntityManager entityManager, QuerydslMetrics metrics,
+                                       ApplicationEventPublisher publisher) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.metrics = metrics;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InstrumentedJPAQuery<Void>(entityManager, metrics);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new InstrumentedJPAUpdateClause(entityManager, path, metrics, publisher);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new InstrumentedJPADeleteClause(entityManager, path, metrics, publisher);
+    }
+}
@@ -0,0 +1,51 @@
+package com.study.querydsl.instrument;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/querydsl
+ * 쿼리(caller, shape) 별 누적 실행 시간이 큰 순서로 JPQL 과 함께 보여준다
+ * caller 는 querydsl.metrics.caller-tag 를 켰을 때만 나오고, other shape 의 jpql 은 없다
+ */
+@Component
+@Endpoint(id = "querydsl")
+public class QuerydslEndpoint {
+
+    private final QuerydslMetrics metrics;
+
+    public QuerydslEndpoint(QuerydslMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> queries() {
+        List<Timer> timers = new ArrayList<>(metrics.registry().find(QuerydslMetrics.TIMER).timers());
+        timers.sort(Comparator.comparingDouble((Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)).reversed());
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Timer timer : timers) {
+            String shape = timer.getId().getTag("shape");
+            Map<String, Object> query = new LinkedHashMap<>();
+            query.put("operation", timer.getId().getTag("operation"));
+            query.put("caller", timer.getId().getTag("caller"));
+            query.put("outcome", timer.getId().getTag("outcome"));
+            query.put("shape", shape);
+            query.put("jpql", metrics.shapes().get(shape));
+            query.put("count", timer.count());
+            query.put("totalTimeMs", timer.totalTime(TimeUnit.MILLISECONDS));
+            query.put("maxTimeMs", timer.max(TimeUnit.MILLISECONDS));
+            result.add(query);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package com.study.querydsl.instrument;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Querydsl 쿼리 실행 지표
+ *
+ * querydsl.query      : 실행 시간
+ * querydsl.query.rows : 결과 row 수 (update/delete 는 영향받은 row 수)
+ *
+ * tag
+ * - operation : fetch, fetchOne, stream, execute
+ * - caller    : 쿼리를 실행한 애플리케이션 메서드 (예: MemberJpaRepository.search). caller-tag 를 켰을 때만
+ * - shape     : JPQL 의 SHA-256 앞 16자리. 실제 JPQL 은 /actuator/querydsl 에서 확인
+ * - outcome   : success, error
+ *
+ * shape 는 max-shapes 개까지만 기억하고 그 뒤에 처음 보는 JPQL 은 모두 other 로 기록한다 (meter 수 제한)
+ *
+ * querydsl.metrics.max-shapes           : 기본 200
+ * querydsl.metrics.caller-tag           : 기본 false. 쿼리마다 stack 을 훑으므로 필요할 때만 켠다
+ * querydsl.metrics.slo-ms               : 기본 5,10,25,50,100,250,500,1000,2500. 실행 시간 histogram bucket (ms).
+ *                                         비우면 bucket 을 만들지 않는다
+ * querydsl.metrics.percentile-histogram : 기본 false. 켜면 slo-ms 대신 micrometer 기본 bucket (meter 마다 수십 개) 을 쓴다
+ */
+@Component
+public class QuerydslMetrics {
+
+    static final String TIMER = "querydsl.query";
+    static final String ROWS = "querydsl.query.rows";
+
+    private static final String APPLICATION_PACKAGE = "com.study.querydsl.";
+    private static final String INSTRUMENT_PACKAGE = QuerydslMetrics.class.getPackage().getName() + ".";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    static final String OTHER_SHAPE = "other";
+    // 64bit. shape 는 max-shapes 개로 제한되므로 충돌할 일은 없다
+    private static final int SHAPE_ID_BYTES = 8;
+
+    private final MeterRegistry registry;
+    private final Map<String, String> shapes = new ConcurrentHashMap<>();
+    private final int maxShapes;
+    private final boolean callerTag;
+    private final boolean percentileHistogram;
+    private final Duration[] slo;
+
+    public QuerydslMetrics(MeterRegistry registry,
+                           @Value("${querydsl.metrics.max-shapes:200}") int maxShapes,
+                           @Value("${querydsl.metrics.caller-tag:false}") boolean callerTag,
+                           @Value("${querydsl.metrics.percentile-histogram:false}") boolean percentileHistogram,
+                           @Value("${querydsl.metrics.slo-ms:5,10,25,50,100,250,500,1000,2500}") long[] sloMs) {
+        this.registry = registry;
+        this.maxShapes = maxShapes;
+        this.callerTag = callerTag;
+        this.percentileHistogram = percentileHistogram;
+        this.slo = Arrays.stream(sloMs).mapToObj(Duration::ofMillis).toArray(Duration[]::new);
+    }
+
+    void record(String operation, String jpql, long elapsedNanos, long rows, boolean success) {
+        Tags tags = Tags.of(
+                "operation", operation,
+                "shape", shapeOf(jpql),
+                "outcome", success ? "success" : "error");
+        if (callerTag) {
+            tags = tags.and("caller", caller());
+        }
+
+        Timer.builder(TIMER)
+                .tags(tags)
+                .publishPercentileHistogram(percentileHistogram)
+                .serviceLevelObjectives(slo)
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            DistributionSummary.builder(ROWS)
+                    .tags(tags)
+                    .register(registry)
+                    .record(rows);
+        }
+    }
+
+    public Map<String, String> shapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+
+    MeterRegistry registry() {
+        return registry;
+    }
+
+    private String shapeOf(String jpql) {
+        if (jpql == null) {
+            return "unknown";
+        }
+        String shape = shapeId(jpql);
+        if (shapes.containsKey(shape)) {
+            return shape;
+        }
+        // 동시에 들어오면 max-shapes 를 조금 넘을 수 있다
+        if (shapes.size() >= maxShapes) {
+            return OTHER_SHAPE;
+        }
+        shapes.putIfAbsent(shape, jpql);
+        return shape;
+    }
+
+    static String shapeId(String jpql) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jpql.getBytes(StandardCharsets.UTF_8));
+            StringBuilder id = new StringBuilder(SHAPE_ID_BYTES * 2);
+            for (int i = 0; i < SHAPE_ID_BYTES; i++) {
+                id.append(Character.forDigit((digest[i] >> 4) & 0xf, 16))
+                        .append(Character.forDigit(digest[i] & 0xf, 16));
+            }
+            return id.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // 모든 JVM 은 SHA-256 을 지원해야 한다
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 계측 코드를 제외한 가장 가까운 애플리케이션 메서드
+    static String caller() {
+        Optional<StackWalker.StackFrame> frame = STACK_WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !f.getClassName().startsWith(INSTRUMENT_PACKAGE))
+                .findFirst());
+        return frame
+                .map(f -> simpleName(f.getClassName()) + "." + f.getMethodName())
+                .orElse("unknown");
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
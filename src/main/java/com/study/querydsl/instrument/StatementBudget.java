@@ -0,0 +1,141 @@
+package com.study.querydsl.instrument;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 요청 하나에서 실행한 SQL 수를 센다 (N+1 감지)
+ *
+ * Hibernate StatementInspector 로 등록되어 모든 SQL 을 본다.
+ * start() 로 샘플링된 요청만 기록하고, 나머지 요청은 ThreadLocal 확인 한번으로 끝난다.
+ * 예산을 넘으면 querydsl.statement.budget.exceeded 를 올리고 반복된 SQL 과 호출 메서드를 로그로 남긴다.
+ * failOnExceed 이면 예산을 넘는 SQL 을 실행하지 않고 StatementBudgetExceededException 을 던진다.
+ *
+ * 다른 스레드에서 실행한 SQL (ParallelQueryExecutor) 은 세지 않는다.
+ *
+ * querydsl.statement-budget.enabled        : 기본 true
+ * querydsl.statement-budget.max-statements : 요청 하나에서 허용하는 SQL 수
+ * querydsl.statement-budget.sample-rate    : 기록할 요청 비율 (0.0 ~ 1.0)
+ * querydsl.statement-budget.fail-on-exceed : 예산을 넘으면 예외 (테스트용)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.statement-budget.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementBudget implements StatementInspector {
+
+    static final String EXCEEDED = "querydsl.statement.budget.exceeded";
+
+    private static final int REPORTED_PATTERNS = 3;
+    // in (?, ?, ?) 는 파라미터 수와 상관없이 같은 SQL 로 본다
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\?(\\s*,\\s*\\?)+\\)");
+
+    private final ThreadLocal<Recording> current = new ThreadLocal<>();
+    private final MeterRegistry registry;
+    private final int maxStatements;
+    private final double sampleRate;
+    private final boolean failOnExceed;
+
+    public StatementBudget(MeterRegistry registry,
+                           @Value("${querydsl.statement-budget.max-statements:10}") int maxStatements,
+                           @Value("${querydsl.statement-budget.sample-rate:0.01}") double sampleRate,
+                           @Value("${querydsl.statement-budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.registry = registry;
+        this.maxStatements = maxStatements;
+        this.sampleRate = sampleRate;
+        this.failOnExceed = failOnExceed;
+    }
+
+    // 샘플링에서 빠지면 false
+    public boolean start(String handler) {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        current.set(new Recording(handler));
+        return true;
+    }
+
+    // 기록한 SQL 수. 샘플링되지 않았으면 -1
+    public int finish() {
+        Recording recording = current.get();
+        if (recording == null) {
+            return -1;
+        }
+        current.remove();
+        if (recording.count > maxStatements && !failOnExceed) {
+            log.warn(report(recording));
+        }
+        return recording.count;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Recording recording = current.get();
+        if (recording == null) {
+            return sql;
+        }
+        recording.record(sql);
+        if (recording.count == maxStatements + 1) {
+            registry.counter(EXCEEDED, "handler", recording.handler).increment();
+            if (failOnExceed) {
+                String report = report(recording);
+                log.warn(report);
+                throw new StatementBudgetExceededException(report);
+            }
+        }
+        return sql;
+    }
+
+    private String report(Recording recording) {
+        String patterns = recording.patterns.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, SqlPattern> e) -> e.getValue().count).reversed())
+                .limit(REPORTED_PATTERNS)
+                .map(e -> String.format("  %dx %s%n    at %s", e.getValue().count, e.getKey(), e.getValue().caller))
+                .collect(Collectors.joining(System.lineSeparator()));
+        return String.format("statement budget exceeded: %s executed %d statements (budget %d)%n%s",
+                recording.handler, recording.count, maxStatements, patterns);
+    }
+
+    private static final class Recording {
+
+        private final String handler;
+        private final Map<String, SqlPattern> patterns = new LinkedHashMap<>();
+        private int count;
+
+        private Recording(String handler) {
+            this.handler = handler;
+        }
+
+        private void record(String sql) {
+            count++;
+            String normalized = IN_LIST.matcher(sql).replaceAll("(?...)");
+            SqlPattern pattern = patterns.get(normalized);
+            if (pattern == null) {
+                // 호출 메서드는 처음 나온 SQL 에서만 찾는다
+                patterns.put(normalized, new SqlPattern(QuerydslMetrics.caller()));
+            } else {
+                pattern.count++;
+            }
+        }
+    }
+
+    private static final class SqlPattern {
+
+        private final String caller;
+        private int count = 1;
+
+        private SqlPattern(String caller) {
+            this.caller = caller;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.study.querydsl.instrument;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// StatementBudget 을 Hibernate StatementInspector 와 회원, 팀 API 인터셉터로 등록한다
+@Configuration
+@ConditionalOnProperty(name = "querydsl.statement-budget.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementBudgetConfig implements WebMvcConfigurer {
+
+    private final StatementBudget statementBudget;
+
+    public StatementBudgetConfig(StatementBudget statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer statementBudgetInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementBudget);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementBudgetInterceptor(statementBudget))
+                .addPathPatterns("/members/**", "/v*/members", "/teams");
+    }
+}
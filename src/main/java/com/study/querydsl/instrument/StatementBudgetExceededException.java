@@ -0,0 +1,9 @@
+package com.study.querydsl.instrument;
+
+// 한 요청에서 실행한 SQL 수가 querydsl.statement-budget.max-statements 를 넘은 경우
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
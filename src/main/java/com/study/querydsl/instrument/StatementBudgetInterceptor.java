@@ -0,0 +1,31 @@
+package com.study.querydsl.instrument;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// 컨트롤러 메서드 단위로 StatementBudget 기록을 시작하고 끝낸다
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+
+    private final StatementBudget statementBudget;
+
+    public StatementBudgetInterceptor(StatementBudget statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            statementBudget.start(method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        statementBudget.finish();
+    }
+}
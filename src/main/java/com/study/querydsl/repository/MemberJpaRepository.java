@@ -1,23 +1,34 @@
 package com.study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.cache.MemberSearchCache;
+import com.study.querydsl.cache.MemberSearchKeyGenerator;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
 import com.study.querydsl.dto.QMemberTeamDto;
 import com.study.querydsl.entity.Member;
 import com.study.querydsl.entity.QMember;
 import com.study.querydsl.entity.QTeam;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Supplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.study.querydsl.entity.QMember.*;
 import static com.study.querydsl.entity.QTeam.*;
@@ -26,8 +37,17 @@ import static com.study.querydsl.entity.QTeam.*;
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    // searchRows 가 memberSearch 캐시에 넣는 결과의 최대 건수
+    private static final int CACHED_ROWS_MAX = 1000;
+    // search 의 캐시 key (MemberSearchKeyGenerator 가 만드는 것과 같다)
+    private static final String SEARCH_CACHE_METHOD = "MemberJpaRepository.search";
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchJpqlCache searchJpqlCache;
+    private final MemberSearchCache memberSearchCache;
+    private final CacheManager cacheManager;
 
     public void save(Member member){
         em.persist(member);
@@ -44,6 +64,7 @@ public class MemberJpaRepository {
         return queryFactory.selectFrom(member).where(member.username.eq(username)).fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition){
         BooleanBuilder builder = new BooleanBuilder();
         if (StringUtils.hasText(condition.getUsername())) {
@@ -71,8 +92,20 @@ public class MemberJpaRepository {
                 .where(builder)
                 .fetch();
     }
+    // 조건 모양별로 미리 직렬화한 JPQL 에 값만 바인딩한다
+    @Cacheable(cacheNames = MemberSearchCache.NAME, keyGenerator = MemberSearchKeyGenerator.NAME,
+            condition = MemberSearchCache.CACHEABLE)
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition){
-        return queryFactory
+        // 캐시된 목록은 여러 호출자가 공유하므로 수정할 수 없게 돌려준다
+        return Collections.unmodifiableList(searchJpqlCache.search(em, condition));
+    }
+
+    // 결과를 List 로 모으지 않고 forward-only 커서로 한 건씩 넘긴다
+    // dto 로 projection 하므로 영속성 컨텍스트에 엔티티가 쌓이지 않는다
+    @Transactional(readOnly = true)
+    public void searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer){
+        try (Stream<MemberTeamDto> stream = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -81,43 +114,60 @@ public class MemberJpaRepository {
                         team.name))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername())
-                                .and(teamNameEq(condition.getTeamName()))
-                                .and(ageGOE(condition.getAgeGoe()))
-                                .and(ageLOE(condition.getAgeLoe()))
-                )
-                .fetch();
+                .where(MemberSearchPredicates.of(condition))
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.READ_ONLY, true)
+                .stream()) {
+            stream.forEach(consumer);
+        }
     }
 
-    private BooleanBuilder ageLOE(Integer ageLoe) {
-        return nullSafeBuilder(()->member.age.loe(ageLoe));
-    }
+    // search 와 같은 결과를 dto 목록 없이 한 row 씩 handler 로 넘긴다 (/v1/members 의 DB 조회)
+    // memberSearch 캐시에 search 결과가 있으면 그것을 쓰고, 없으면 search 와 같은 JPQL 템플릿을 커서로 읽는다
+    // CACHED_ROWS_MAX 건 이하로 끝난 결과만 캐시에 넣는다. 큰 결과는 모으지 않고 그대로 흘려보낸다
+    @Transactional(readOnly = true)
+    public void searchRows(MemberSearchCondition condition, MemberTeamRows.RowHandler handler) throws IOException {
+        Cache cache = memberSearchCache.isCacheable() ? cacheManager.getCache(MemberSearchCache.NAME) : null;
+        Object key = MemberSearchKeyGenerator.keyOf(SEARCH_CACHE_METHOD, condition, Pageable.unpaged());
+        Cache.ValueWrapper cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            for (Object row : (List<?>) cached.get()) {
+                MemberTeamDto dto = (MemberTeamDto) row;
+                handler.row(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName());
+            }
+            return;
+        }
 
-    private BooleanBuilder ageGOE(Integer ageGoe) {
-        return nullSafeBuilder(()->member.age.goe(ageGoe));
+        SmallResult result = new SmallResult(cache != null ? CACHED_ROWS_MAX : 0);
+        searchJpqlCache.forEachRow(em, condition, STREAM_FETCH_SIZE, (memberId, username, age, teamId, teamName) -> {
+            result.add(memberId, username, age, teamId, teamName);
+            handler.row(memberId, username, age, teamId, teamName);
+        });
+        if (cache != null && result.rows != null) {
+            cache.put(key, Collections.unmodifiableList(result.rows));
+        }
     }
 
-    private BooleanBuilder teamNameEq(String teamName) {
-        if(!StringUtils.hasText(teamName))
-            return new BooleanBuilder();
-        return nullSafeBuilder(()->team.name.eq(teamName));
-    }
+    // max 건 이하일 때만 dto 를 모은다. 넘으면 버린다 (rows == null)
+    private static final class SmallResult {
 
+        private final int max;
+        private List<MemberTeamDto> rows = new ArrayList<>();
 
-    private BooleanBuilder usernameEq(String username) {
-        if(!StringUtils.hasText(username))
-            return new BooleanBuilder();
-        return nullSafeBuilder(()->member.username.eq(username));
-    }
+        private SmallResult(int max) {
+            this.max = max;
+        }
 
-    public static BooleanBuilder nullSafeBuilder(Supplier<BooleanExpression> supplier){
-        try{
-           return new BooleanBuilder(supplier.get());
-        }catch(IllegalArgumentException e){
-            return new BooleanBuilder();
-        }catch (NullPointerException e){
-            return new BooleanBuilder();
+        void add(long memberId, String username, int age, Long teamId, String teamName) {
+            if (rows == null) {
+                return;
+            }
+            if (rows.size() == max) {
+                rows = null;
+                return;
+            }
+            rows.add(new MemberTeamDto(memberId, username, age, teamId, teamName));
         }
     }
 }
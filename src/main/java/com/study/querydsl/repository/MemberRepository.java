@@ -1,15 +1,42 @@
 package com.study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.querydsl.binding.QuerydslBinderCustomizer;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
-public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
+public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member>,
+        QuerydslBinderCustomizer<QMember> {
 
     List<Member> findByUsername(String username);
 
-
-
+    /**
+     * @QuerydslPredicate 로 바인딩할 수 있는 파라미터 (나머지는 무시한다)
+     * username : 앞부분 일치 (username=mem -> like 'mem%', 인덱스 사용)
+     * age : 값 하나면 같음, 두개면 between (age=10&age=20)
+     * team.name : 같음
+     */
+    @Override
+    default void customize(QuerydslBindings bindings, QMember root) {
+        bindings.excludeUnlistedProperties(true);
+        bindings.including(root.username, root.age, root.team.name);
+        bindings.bind(root.username).first((path, value) -> path.startsWith(value));
+        bindings.bind(root.team.name).first((path, value) -> path.eq(value));
+        bindings.bind(root.age).all((path, values) -> {
+            Iterator<? extends Integer> iterator = values.iterator();
+            if (!iterator.hasNext()) {
+                return Optional.empty();
+            }
+            Integer from = iterator.next();
+            Predicate predicate = iterator.hasNext() ? path.between(from, iterator.next()) : path.eq(from);
+            return Optional.of(predicate);
+        });
+    }
 }
@@ -1,9 +1,12 @@
 package com.study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -14,4 +17,14 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     // countquery 최적화 PageableExecutionUtils가 제공
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    // count(*) over() 로 content 와 전체 건수를 한번의 쿼리로 조회 (JPQL 로 표현할 수 없어 native query 사용)
+    Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable);
+    // deferred join : member.id 만으로 offset 페이징한 뒤 그 id 들만 in 쿼리로 MemberTeamDto 를 조회 (id 순서)
+    Page<MemberTeamDto> searchPageDeferred(MemberSearchCondition condition, Pageable pageable);
+    // count 쿼리 없이 pageSize + 1 건을 조회해서 다음 페이지 여부만 계산 (무한 스크롤)
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    // 웹에서 받은 조건(@QuerydslPredicate)으로 조회. PredicateCostGuard 를 통과해야 실행하고 count 쿼리는 없다
+    Slice<MemberTeamDto> searchByPredicate(Predicate predicate, Pageable pageable);
+    // keyset(seek) 페이징 : offset 없이 마지막 (age, member_id) 이후부터 조회, 페이지 깊이와 무관하게 일정한 비용
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, int size);
 }
@@ -1,44 +1,82 @@
 package com.study.querydsl.repository;
 
-import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.cache.MemberSearchCache;
+import com.study.querydsl.cache.MemberSearchKeyGenerator;
+import com.study.querydsl.dto.MemberCursor;
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.repository.support.InvalidSearchRequestException;
+import com.study.querydsl.repository.support.InClauseBuckets;
+import com.study.querydsl.repository.support.ParallelQueryExecutor;
+import com.study.querydsl.repository.support.PredicateCostGuard;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static com.study.querydsl.entity.QMember.member;
 import static com.study.querydsl.entity.QTeam.team;
 
+// 조회 전용. 라우팅을 켜면 replica 를 사용한다
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
 
+    // deferred join 2단계 in 절 크기 (쿼리 플랜 캐시 재사용)
+    private static final InClauseBuckets DEFERRED_ID_BUCKETS = new InClauseBuckets(20, 50, 100, 500, 1000);
+
+    // searchPageWindow 에서 정렬할 수 있는 MemberTeamDto 프로퍼티와 컬럼
+    private static final Map<String, String> WINDOW_SORT_COLUMNS = Map.of(
+            "memberId", "m.member_id",
+            "username", "m.username",
+            "age", "m.age",
+            "teamId", "t.team_id",
+            "teamName", "t.name");
+
+    private static final ReplaceVisitor<Void> TEAM_ALIAS = new ReplaceVisitor<Void>() {
+        @Override
+        public Expression<?> visit(Path<?> expr, Void context) {
+            return member.team.equals(expr) ? team : super.visit(expr, context);
+        }
+    };
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final ParallelQueryExecutor parallelQueryExecutor;
+    private final PredicateCostGuard predicateCostGuard;
+
+    // true 면 searchPageComplex 의 content, count 쿼리를 동시에 실행한다
+    @Value("${querydsl.paging.concurrent-count:false}")
+    private boolean concurrentCount;
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        BooleanBuilder builder = new BooleanBuilder();
-        if (StringUtils.hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
-        }
-        if(StringUtils.hasText(condition.getTeamName())){
-            builder.and(team.name.eq(condition.getTeamName()));
-        }
-        if(condition.getAgeGoe() != null){
-            builder.and(member.age.goe(condition.getAgeGoe()));
-        }
-        if(condition.getAgeLoe()!=null){
-            builder.and(member.age.loe(condition.getAgeLoe()));
-        }
+        Predicate predicate = MemberSearchPredicates.of(condition);
 
         return queryFactory
                 .select(new QMemberTeamDto(
@@ -49,25 +87,15 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
                         team.name))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(builder)
+                .where(predicate)
                 .fetch();
     }
 
     @Override
+    @Cacheable(cacheNames = MemberSearchCache.NAME, keyGenerator = MemberSearchKeyGenerator.NAME,
+            condition = MemberSearchCache.CACHEABLE)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        BooleanBuilder builder = new BooleanBuilder();
-        if (StringUtils.hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
-        }
-        if(StringUtils.hasText(condition.getTeamName())){
-            builder.and(team.name.eq(condition.getTeamName()));
-        }
-        if(condition.getAgeGoe() != null){
-            builder.and(member.age.goe(condition.getAgeGoe()));
-        }
-        if(condition.getAgeLoe()!=null){
-            builder.and(member.age.loe(condition.getAgeLoe()));
-        }
+        Predicate predicate = MemberSearchPredicates.of(condition);
 
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
@@ -78,33 +106,223 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
                         team.name))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(builder)
+                .where(predicate)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
         Long count = queryFactory.select(member.count()).from(member)
                 .leftJoin(member.team, team)
-                .where(builder).fetchOne();
+                .where(predicate).fetchOne();
         return new PageImpl<>(content,pageable,count);
     }
 
     @Override
+    @Cacheable(cacheNames = MemberSearchCache.NAME, keyGenerator = MemberSearchKeyGenerator.NAME,
+            condition = MemberSearchCache.CACHEABLE)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        if (concurrentCount) {
+            return searchPageConcurrent(condition, pageable);
+        }
+        Predicate predicate = MemberSearchPredicates.of(condition);
 
-        BooleanBuilder builder = new BooleanBuilder();
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicate)
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        JPAQuery<Long> count = queryFactory.select(member.count()).from(member)
+                .leftJoin(member.team, team)
+                .where(predicate);
+        return PageableExecutionUtils.getPage(content,pageable, () -> count.fetchOne());
+    }
+
+    // count 쿼리는 작업 스레드(별도 EntityManager, readOnly 트랜잭션)에서, content 쿼리는 호출한 스레드에서 동시에 실행
+    // 요청 하나가 더 쓰는 커넥션은 최대 하나
+    private Page<MemberTeamDto> searchPageConcurrent(MemberSearchCondition condition, Pageable pageable) {
+        CompletableFuture<Long> count = parallelQueryExecutor.submit(() -> queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.of(condition))
+                .fetchOne());
+
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.of(condition))
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable,
+                () -> ParallelQueryExecutor.await(count));
+        // count 가 필요 없었으면 결과는 버린다. 작업 스레드에서 아직 시작하지 않았을 때만 실행을 건너뛰고
+        // 이미 실행중인 count 쿼리는 끝까지 실행된다 (호출한 쪽은 기다리지 않는다)
+        count.cancel(false);
+        return page;
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        StringBuilder sql = new StringBuilder()
+                .append("select m.member_id, m.username, m.age, t.team_id, t.name, count(*) over() as total_count")
+                .append(" from member m left outer join team t on m.team_id = t.team_id")
+                .append(" where 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
         if (StringUtils.hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+            sql.append(" and m.username = :username");
+            params.put("username", condition.getUsername());
         }
-        if(StringUtils.hasText(condition.getTeamName())){
-            builder.and(team.name.eq(condition.getTeamName()));
+        if (StringUtils.hasText(condition.getTeamName())) {
+            sql.append(" and t.name = :teamName");
+            params.put("teamName", condition.getTeamName());
         }
-        if(condition.getAgeGoe() != null){
-            builder.and(member.age.goe(condition.getAgeGoe()));
+        if (condition.getAgeGoe() != null) {
+            sql.append(" and m.age >= :ageGoe");
+            params.put("ageGoe", condition.getAgeGoe());
         }
-        if(condition.getAgeLoe()!=null){
-            builder.and(member.age.loe(condition.getAgeLoe()));
+        if (condition.getAgeLoe() != null) {
+            sql.append(" and m.age <= :ageLoe");
+            params.put("ageLoe", condition.getAgeLoe());
+        }
+        sql.append(windowOrderBy(pageable.getSort()));
+
+        Query query = em.createNativeQuery(sql.toString());
+        params.forEach(query::setParameter);
+        // limit/offset 은 window 함수 계산 이후에 적용되므로 total_count 는 전체 건수
+        if (pageable.getOffset() > Integer.MAX_VALUE) {
+            throw new InvalidSearchRequestException("offset 이 너무 큽니다: " + pageable.getOffset());
         }
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            content.add(new MemberTeamDto(
+                    ((Number) row[0]).longValue(),
+                    (String) row[1],
+                    ((Number) row[2]).intValue(),
+                    row[3] != null ? ((Number) row[3]).longValue() : null,
+                    (String) row[4]));
+        }
+
+        // 마지막 페이지를 넘어가서 row 가 없을 때만 count 쿼리를 따로 실행한다
+        Long windowTotal = rows.isEmpty() ? null : ((Number) rows.get(0)[5]).longValue();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> windowTotal != null ? windowTotal : queryFactory
+                        .select(member.count())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(MemberSearchPredicates.of(condition))
+                        .fetchOne());
+    }
+
+    // native 쿼리이므로 MemberTeamDto 프로퍼티만 컬럼으로 바꿔서 정렬한다. 같은 값은 member_id 순
+    private static String windowOrderBy(Sort sort) {
+        StringBuilder orderBy = new StringBuilder(" order by ");
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            String column = WINDOW_SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new InvalidSearchRequestException("정렬할 수 없는 속성 입니다: " + order.getProperty());
+            }
+            orderBy.append(column).append(order.isAscending() ? " asc" : " desc").append(", ");
+            byId |= "m.member_id".equals(column);
+        }
+        if (!byId) {
+            orderBy.append("m.member_id, ");
+        }
+        return orderBy.substring(0, orderBy.length() - 2);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageDeferred(MemberSearchCondition condition, Pageable pageable) {
+        Predicate predicate = MemberSearchPredicates.of(condition);
+        // teamName 조건이 없으면 team 을 조인하지 않는다
+        boolean joinTeam = StringUtils.hasText(condition.getTeamName());
+
+        // 1단계 : offset 만큼 건너뛰는 동안 id 만 읽는다
+        JPAQuery<Long> idQuery = queryFactory
+                .select(member.id)
+                .from(member);
+        if (joinTeam) {
+            idQuery.leftJoin(member.team, team);
+        }
+        List<Long> ids = idQuery
+                .where(predicate)
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        // 2단계 : 페이지에 들어갈 id 만 조회하고 1단계 순서로 맞춘다
+        Map<Long, MemberTeamDto> byId = new HashMap<>();
+        for (List<Long> chunk : DEFERRED_ID_BUCKETS.partition(ids)) {
+            queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(chunk))
+                    .fetch()
+                    .forEach(dto -> byId.put(dto.getMemberId(), dto));
+        }
+        List<MemberTeamDto> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MemberTeamDto dto = byId.get(id);
+            // 두 쿼리 사이에 삭제된 회원은 건너뛴다
+            if (dto != null) {
+                content.add(dto);
+            }
+        }
+
+        JPAQuery<Long> count = queryFactory.select(member.count()).from(member);
+        if (joinTeam) {
+            count.leftJoin(member.team, team);
+        }
+        count.where(predicate);
+        return PageableExecutionUtils.getPage(content, pageable, count::fetchOne);
+    }
 
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return fetchSlice(MemberSearchPredicates.of(condition), pageable);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchByPredicate(Predicate predicate, Pageable pageable) {
+        predicateCostGuard.check(predicate);
+        predicateCostGuard.checkOffset(pageable.getOffset());
+        // member.team.name 같은 경로를 left join 한 team 별칭으로 바꿔서 묵시적 join 이 추가되지 않게 한다
+        Predicate where = predicate != null ? (Predicate) predicate.accept(TEAM_ALIAS, null) : null;
+        return fetchSlice(where, pageable);
+    }
+
+    // offset 페이징이 요청마다 같은 순서가 되도록 id 로 정렬한다
+    private Slice<MemberTeamDto> fetchSlice(Predicate where, Pageable pageable) {
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
@@ -114,14 +332,48 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
                         team.name))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(builder)
+                .where(where)
+                .orderBy(member.id.asc())
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .limit(pageable.getPageSize() + 1)
                 .fetch();
 
-        JPAQuery<Long> count = queryFactory.select(member.count()).from(member)
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content.remove(content.size() - 1);
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, int size) {
+        if (size < 1) {
+            throw new InvalidSearchRequestException("size는 1 이상이어야 합니다");
+        }
+
+        // 다음 페이지 존재 여부를 알기 위해 size + 1 건을 조회한다
+        List<MemberTeamDto> fetched = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
                 .leftJoin(member.team, team)
-                .where(builder);
-        return PageableExecutionUtils.getPage(content,pageable, () -> count.fetchOne());
+                .where(
+                        MemberSearchPredicates.of(condition),
+                        MemberSearchPredicates.afterCursor(MemberCursor.decode(cursor))
+                )
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(size + 1)
+                .fetch();
+
+        if (fetched.size() <= size) {
+            return new MemberCursorPage(fetched, null);
+        }
+        List<MemberTeamDto> content = new ArrayList<>(fetched.subList(0, size));
+        String nextCursor = MemberCursor.of(content.get(size - 1)).encode();
+        return new MemberCursorPage(content, nextCursor);
     }
 }
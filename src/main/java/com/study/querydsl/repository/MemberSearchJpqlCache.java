@@ -0,0 +1,162 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import com.study.querydsl.dto.QMemberTeamDto;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 의 모양(username, teamName, ageGoe, ageLoe 중 어떤 값이 있는지, 16가지)별로
+ * 직렬화한 JPQL 을 재사용한다
+ *
+ * 값은 Param 으로 만들어 두고 실행할 때 바인딩만 한다.
+ * 같은 모양이면 JPQL 문자열이 항상 같으므로 Hibernate query plan cache 도 그대로 적중한다.
+ */
+@Component
+public class MemberSearchJpqlCache {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private static final QMemberTeamDto PROJECTION = new QMemberTeamDto(
+            member.id,
+            member.username,
+            member.age,
+            team.id,
+            team.name);
+
+    private final AtomicReferenceArray<JpqlTemplate> templates = new AtomicReferenceArray<>(16);
+
+    public List<MemberTeamDto> search(EntityManager em, MemberSearchCondition condition) {
+        List<?> rows = createQuery(em, condition).getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(PROJECTION.newInstance((Object[]) row));
+        }
+        return result;
+    }
+
+    // search 와 같은 JPQL 을 forward-only 커서로 읽어 dto 없이 row 값을 넘긴다
+    public void forEachRow(EntityManager em, MemberSearchCondition condition, int fetchSize,
+                           MemberTeamRows.RowHandler handler) throws IOException {
+        Query query = createQuery(em, condition)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true);
+        try (Stream<?> stream = query.getResultStream()) {
+            Iterator<?> rows = stream.iterator();
+            while (rows.hasNext()) {
+                // select 순서 : member.id, member.username, member.age, team.id, team.name
+                Object[] row = (Object[]) rows.next();
+                handler.row((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]);
+            }
+        }
+    }
+
+    private Query createQuery(EntityManager em, MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        JpqlTemplate template = templates.get(shape);
+        if (template == null) {
+            // 동시에 만들어도 결과가 같으므로 먼저 저장된 것을 쓴다
+            templates.compareAndSet(shape, null, build(shape));
+            template = templates.get(shape);
+        }
+
+        Query query = em.createQuery(template.jpql);
+        for (int i = 0; i < template.constants.size(); i++) {
+            query.setParameter(i + 1, valueOf(template.constants.get(i), condition));
+        }
+        return query;
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    private static JpqlTemplate build(int shape) {
+        JPAQuery<MemberTeamDto> query = new JPAQuery<Void>()
+                .select(PROJECTION)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        (shape & USERNAME) != 0 ? member.username.eq(USERNAME_PARAM) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(TEAM_NAME_PARAM) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(AGE_GOE_PARAM) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(AGE_LOE_PARAM) : null
+                );
+
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new JpqlTemplate(serializer.toString(), new ArrayList<>(serializer.getConstants()));
+    }
+
+    private static Object valueOf(Object constant, MemberSearchCondition condition) {
+        if (!(constant instanceof ParamExpression)) {
+            return constant;
+        }
+        if (USERNAME_PARAM.equals(constant)) {
+            return condition.getUsername();
+        }
+        if (TEAM_NAME_PARAM.equals(constant)) {
+            return condition.getTeamName();
+        }
+        if (AGE_GOE_PARAM.equals(constant)) {
+            return condition.getAgeGoe();
+        }
+        if (AGE_LOE_PARAM.equals(constant)) {
+            return condition.getAgeLoe();
+        }
+        throw new IllegalStateException("알 수 없는 파라미터 입니다: " + constant);
+    }
+
+    private static final class JpqlTemplate {
+        private final String jpql;
+        // JPQL 의 ?1, ?2 ... 순서대로 상수 또는 Param
+        private final List<Object> constants;
+
+        private JpqlTemplate(String jpql, List<Object> constants) {
+            this.jpql = jpql;
+            this.constants = Collections.unmodifiableList(constants);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.study.querydsl.dto.MemberCursor;
+import com.study.querydsl.dto.MemberSearchCondition;
+import org.springframework.util.StringUtils;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition -> where 조건
+ *
+ * 값이 없는 조건은 null 을 반환하고 건너뛴다. 예외나 빈 BooleanBuilder 를 만들지 않는다.
+ * teamName 조건은 team alias 를 참조하므로 leftJoin(member.team, team) 이 필요하다.
+ */
+public final class MemberSearchPredicates {
+
+    private MemberSearchPredicates() {
+    }
+
+    // 조건이 하나도 없으면 null (where(null) 은 무시된다)
+    public static Predicate of(MemberSearchCondition condition) {
+        Predicate predicate = null;
+        predicate = and(predicate, usernameEq(condition.getUsername()));
+        predicate = and(predicate, teamNameEq(condition.getTeamName()));
+        predicate = and(predicate, ageGoe(condition.getAgeGoe()));
+        predicate = and(predicate, ageLoe(condition.getAgeLoe()));
+        return predicate;
+    }
+
+    public static BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    public static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    // (age, member_id) > (cursor.age, cursor.memberId)
+    // 앞의 age >= 조건은 결과를 바꾸지 않고 (age, member_id) 인덱스 범위 조회를 가능하게 한다
+    public static BooleanExpression afterCursor(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return member.age.goe(cursor.getAge())
+                .and(member.age.gt(cursor.getAge())
+                        .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId()))));
+    }
+
+    private static Predicate and(Predicate left, Predicate right) {
+        if (right == null) {
+            return left;
+        }
+        return left == null ? right : ExpressionUtils.and(left, right);
+    }
+}
@@ -1,15 +1,18 @@
 package com.study.querydsl.repository;
 
+import com.querydsl.core.Tuple;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.entity.Member;
 import com.study.querydsl.entity.QMember;
 import com.study.querydsl.repository.support.Querydsl4RepositorySupport;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.util.StringUtils;
 
 import java.util.List;
 
 import static com.study.querydsl.entity.QMember.*;
+import static com.study.querydsl.entity.QTeam.team;
 
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
@@ -26,6 +29,55 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable){
         return applyPagination(pageable,query->(query.selectFrom(member)));
     }
+    // count 쿼리는 자동으로 만들어진다. teamName 조건이 없으면 count 에서 team left join 이 빠진다
+    public Page<Member> searchPageByApplyPagination(MemberSearchCondition condition, Pageable pageable){
+        return applyPagination(pageable, query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        StringUtils.hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+                        condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null
+                )
+                .orderBy(member.username.asc()));
+    }
+    // group by 가 있으면 count 는 그룹 수. 팀이 없는 회원은 null 그룹이 된다
+    public Page<String> teamNamePage(Pageable pageable){
+        return applyPagination(pageable, query -> query
+                .select(team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name));
+    }
+    public Page<String> teamNamePageHavingMembers(long minMembers, Pageable pageable){
+        return applyPagination(pageable, query -> query
+                .select(team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name)
+                .having(member.count().goe(minMembers)));
+    }
+    // group by 컬럼이 여러 개면 그룹별 대표 id 서브쿼리로 센다
+    public Page<Tuple> teamNameAgePage(Pageable pageable){
+        return applyPagination(pageable, query -> query
+                .select(team.name, member.age)
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name, member.age));
+    }
+    public Page<String> distinctTeamNamePage(Pageable pageable){
+        return applyPagination(pageable, query -> query
+                .select(team.name)
+                .distinct()
+                .from(member)
+                .leftJoin(member.team, team));
+    }
+    public Page<Tuple> distinctTeamNameAgePage(Pageable pageable){
+        return applyPagination(pageable, query -> query
+                .select(team.name, member.age)
+                .distinct()
+                .from(member)
+                .leftJoin(member.team, team));
+    }
     public Page<Member> applyPaginationWithCount(MemberSearchCondition condition, Pageable pageable){
         return applyPagination(pageable,
                 query->(query.selectFrom(member)),
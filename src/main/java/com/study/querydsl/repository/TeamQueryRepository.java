@@ -0,0 +1,84 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.QTeamWithMembersDto;
+import com.study.querydsl.dto.TeamWithMembersDto;
+import com.study.querydsl.repository.support.InClauseBuckets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 목록 + 소속 회원
+ *
+ * fetch join 은 회원 수만큼 row 가 늘어나서 페이징을 DB 에서 할 수 없고,
+ * 지연 로딩은 팀마다 회원 조회가 실행된다 (N+1).
+ * 팀 페이지를 먼저 조회하고, 그 팀들의 회원을 in 쿼리로 한번에(크기를 넘으면 나눠서) 가져온다.
+ * in 절 크기는 querydsl.team.member-batch-sizes 중 하나로 맞춘다.
+ */
+@Repository
+public class TeamQueryRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final InClauseBuckets memberBatch;
+
+    public TeamQueryRepository(JPAQueryFactory queryFactory,
+                               @Value("${querydsl.team.member-batch-sizes:16,64,256}") int[] memberBatchSizes) {
+        this.queryFactory = queryFactory;
+        this.memberBatch = new InClauseBuckets(memberBatchSizes);
+    }
+
+    // 팀은 id 순서
+    @Transactional(readOnly = true)
+    public Page<TeamWithMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<TeamWithMembersDto> content = queryFactory
+                .select(new QTeamWithMembersDto(team.id, team.name))
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        fetchMembers(content);
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.count())
+                .from(team);
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    private void fetchMembers(List<TeamWithMembersDto> teams) {
+        Map<Long, TeamWithMembersDto> teamById = new LinkedHashMap<>();
+        for (TeamWithMembersDto dto : teams) {
+            teamById.put(dto.getTeamId(), dto);
+        }
+
+        for (List<Long> teamIds : memberBatch.partition(new ArrayList<>(teamById.keySet()))) {
+            List<Tuple> rows = queryFactory
+                    .select(member.team.id, member.username, member.age)
+                    .from(member)
+                    .where(member.team.id.in(teamIds))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            for (Tuple row : rows) {
+                teamById.get(row.get(member.team.id)).getMembers()
+                        .add(new MemberDto(row.get(member.username), row.get(member.age)));
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * in 절 파라미터 수를 정해진 크기 중 하나로 맞춘다
+ *
+ * 값 개수마다 다른 SQL 이 만들어지면 Hibernate 쿼리 플랜 캐시와 DB statement 캐시를 채우게 된다.
+ * 가장 큰 크기로 나누고, 각 묶음은 마지막 값을 반복해서 가장 가까운 크기까지 채운다.
+ * 예) 크기 [4, 16] 에 값 5개 -> [a, b, c, d, e, e, e, ..., e] (16개)
+ */
+public final class InClauseBuckets {
+
+    private final int[] sizes;
+
+    public InClauseBuckets(int... sizes) {
+        if (sizes.length == 0 || Arrays.stream(sizes).anyMatch(size -> size < 1)) {
+            throw new IllegalArgumentException("in clause bucket sizes must be positive: " + Arrays.toString(sizes));
+        }
+        this.sizes = Arrays.stream(sizes).sorted().distinct().toArray();
+    }
+
+    public <T> List<List<T>> partition(List<T> values) {
+        int maxSize = sizes[sizes.length - 1];
+        List<List<T>> chunks = new ArrayList<>((values.size() + maxSize - 1) / maxSize);
+        for (int from = 0; from < values.size(); from += maxSize) {
+            List<T> chunk = values.subList(from, Math.min(from + maxSize, values.size()));
+            chunks.add(pad(chunk));
+        }
+        return chunks;
+    }
+
+    int bucketOf(int count) {
+        for (int size : sizes) {
+            if (size >= count) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    private <T> List<T> pad(List<T> chunk) {
+        int bucket = bucketOf(chunk.size());
+        List<T> padded = new ArrayList<>(bucket);
+        padded.addAll(chunk);
+        T last = chunk.get(chunk.size() - 1);
+        while (padded.size() < bucket) {
+            padded.add(last);
+        }
+        return padded;
+    }
+}
@@ -0,0 +1,18 @@
+package com.study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// 클라이언트가 보낸 커서, 페이지 크기, 정렬 값이 잘못된 경우. API 요청이면 400 으로 응답한다
+// IllegalArgumentException 을 상속하면 리포지토리 예외 변환에서 InvalidDataAccessApiUsageException(500) 으로 바뀌므로 따로 둔다
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchRequestException extends RuntimeException {
+
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,122 @@
+package com.study.querydsl.repository.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 조회 쿼리를 별도 스레드에서 동시에 실행한다
+ *
+ * 각 작업은 readOnly 트랜잭션 안에서 실행되므로 스레드마다 자신의 EntityManager 를 사용한다.
+ * 호출한 쪽 트랜잭션에서 flush 되지 않은(커밋되지 않은) 변경은 보이지 않는다.
+ *
+ * 작업 스레드는 각자 커넥션을 하나씩 더 쓰고, 호출한 스레드는 결과를 기다리는 동안 자기 커넥션을 쥐고 있다.
+ * 커넥션 풀이 바닥나지 않도록 스레드 수는 HikariCP maximum-pool-size 의 1/4 을 넘지 않게 하고 큐는 두지 않는다.
+ * 라우팅 DataSource 이면 대상 풀 중 가장 작은 풀을 기준으로 한다.
+ * 쉬는 작업 스레드가 없으면 호출한 스레드가 자기 트랜잭션(커넥션)으로 직접 실행한다.
+ *
+ * 반환한 future 를 cancel 하면 아직 시작하지 않은 작업은 실행하지 않는다. 이미 실행중인 쿼리는 멈추지 않는다.
+ */
+@Component
+public class ParallelQueryExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ParallelQueryExecutor(PlatformTransactionManager transactionManager,
+                                 DataSource dataSource,
+                                 @Value("${querydsl.paging.concurrent.pool-size:4}") int poolSize) {
+        AtomicInteger sequence = new AtomicInteger();
+        int threads = threadsFor(dataSource, poolSize);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "paging-query-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        // supplyAsync 는 cancel 되어도 작업을 그대로 실행하므로 시작 전에 확인한다
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(readOnlyTransaction.execute(status -> query.get()));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    // CompletionException 을 벗겨서 원래 예외를 던진다
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // HikariCP 풀을 찾을 수 없는 DataSource 는 설정값을 그대로 쓴다
+    static int threadsFor(DataSource dataSource, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("querydsl.paging.concurrent.pool-size는 1 이상이어야 합니다");
+        }
+        OptionalInt connections = maximumPoolSize(dataSource);
+        if (connections.isPresent()) {
+            return Math.max(1, Math.min(poolSize, connections.getAsInt() / 4));
+        }
+        return poolSize;
+    }
+
+    // LazyConnectionDataSourceProxy 등 위임 DataSource 는 벗기고, 라우팅 DataSource 는 대상 풀 중 가장 작은 값
+    private static OptionalInt maximumPoolSize(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource) {
+            return OptionalInt.of(((HikariDataSource) dataSource).getMaximumPoolSize());
+        }
+        if (dataSource instanceof DelegatingDataSource) {
+            DataSource target = ((DelegatingDataSource) dataSource).getTargetDataSource();
+            return target != null ? maximumPoolSize(target) : OptionalInt.empty();
+        }
+        if (dataSource instanceof AbstractRoutingDataSource) {
+            return ((AbstractRoutingDataSource) dataSource).getResolvedDataSources().values().stream()
+                    .map(ParallelQueryExecutor::maximumPoolSize)
+                    .filter(OptionalInt::isPresent)
+                    .mapToInt(OptionalInt::getAsInt)
+                    .min();
+        }
+        return OptionalInt.empty();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,321 @@
+package com.study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 웹에서 받은 임의의 조건(@QuerydslPredicate)이 DB 에 부담을 주는 모양이면 실행 전에 거부한다
+ *
+ * 조건의 모양(상수를 ? 로 바꾼 식)만으로 판단하는 검사(깊이, 앞이 열린 like 연산, 한쪽만 막힌 범위)는
+ * 모양별로 결과를 캐시한다. 상수 값을 봐야 하는 검사(% 로 시작하는 like 패턴, in 절 크기)는 매번 한다.
+ * offset 페이징은 건너뛰는 row 를 모두 읽으므로 max-offset 보다 깊은 페이지도 거부한다 (checkOffset).
+ * 거부하면 PredicateTooExpensiveException 을 던지고 querydsl.predicate.rejected (reason) 를 올린다.
+ */
+@Component
+public class PredicateCostGuard {
+
+    public enum Reason {
+        DEPTH, NOT_INDEXABLE, LEADING_WILDCARD, UNBOUNDED_RANGE, IN_SIZE, UNSUPPORTED, DEEP_PAGE
+    }
+
+    // 앞쪽이 열려 있거나 컬럼을 가공해서 인덱스를 탈 수 없는 문자열 연산
+    private static final Set<Operator> NOT_INDEXABLE_OPS = Set.of(
+            Ops.ENDS_WITH, Ops.ENDS_WITH_IC,
+            Ops.STRING_CONTAINS, Ops.STRING_CONTAINS_IC,
+            Ops.MATCHES, Ops.MATCHES_IC,
+            Ops.STARTS_WITH_IC, Ops.LIKE_IC, Ops.LIKE_ESCAPE_IC);
+    private static final Set<Operator> LIKE_OPS = Set.of(Ops.LIKE, Ops.LIKE_ESCAPE);
+    private static final Set<Operator> LOWER_BOUND_OPS = Set.of(Ops.GT, Ops.GOE);
+    private static final Set<Operator> UPPER_BOUND_OPS = Set.of(Ops.LT, Ops.LOE);
+
+    private final int maxDepth;
+    private final int maxInSize;
+    private final long maxOffset;
+    // 모양 -> 거부 사유 (통과는 Optional.empty()). 메시지에는 상수 값을 넣지 않는다
+    private final Cache<String, Optional<Rejection>> shapeVerdicts;
+    private final MeterRegistry registry;
+
+    public PredicateCostGuard(MeterRegistry registry,
+                              @Value("${querydsl.predicate.max-depth:4}") int maxDepth,
+                              @Value("${querydsl.predicate.max-in-size:100}") int maxInSize,
+                              @Value("${querydsl.predicate.shape-cache-size:1000}") long shapeCacheSize,
+                              @Value("${querydsl.predicate.max-offset:10000}") long maxOffset) {
+        this.registry = registry;
+        this.maxDepth = maxDepth;
+        this.maxInSize = maxInSize;
+        this.maxOffset = maxOffset;
+        this.shapeVerdicts = Caffeine.newBuilder().maximumSize(shapeCacheSize).build();
+    }
+
+    // null(조건 없음)은 허용한다. 호출하는 쪽에서 페이지 크기로 결과를 제한한다
+    public void check(Predicate predicate) {
+        if (predicate == null) {
+            return;
+        }
+        Optional<Rejection> shapeVerdict = shapeVerdicts.get(shapeOf(predicate), shape -> checkShape(predicate));
+        Rejection rejection = shapeVerdict.orElseGet(() -> checkValues(predicate));
+        if (rejection != null) {
+            reject(rejection);
+        }
+    }
+
+    // 더 깊이 내려가야 하면 keyset 페이징(/v4/members)을 쓴다
+    public void checkOffset(long offset) {
+        if (offset > maxOffset) {
+            reject(new Rejection(Reason.DEEP_PAGE, "offset 은 " + maxOffset + " 까지 사용할 수 있습니다: " + offset));
+        }
+    }
+
+    private void reject(Rejection rejection) {
+        registry.counter("querydsl.predicate.rejected", "reason", rejection.reason.name()).increment();
+        throw new PredicateTooExpensiveException(rejection.reason, rejection.message);
+    }
+
+    // 상수를 ? 로 바꾼 문자열. 값만 다른 조건은 같은 모양이다
+    static String shapeOf(Predicate predicate) {
+        StringBuilder shape = new StringBuilder();
+        predicate.accept(ShapeVisitor.INSTANCE, shape);
+        return shape.toString();
+    }
+
+    private Optional<Rejection> checkShape(Predicate predicate) {
+        if (depthOf(predicate) > maxDepth) {
+            return Optional.of(new Rejection(Reason.DEPTH, "조건이 너무 깊습니다 (최대 " + maxDepth + ")"));
+        }
+        Operation<?> notIndexable = find(predicate, op -> NOT_INDEXABLE_OPS.contains(op.getOperator()));
+        if (notIndexable != null) {
+            return Optional.of(new Rejection(Reason.NOT_INDEXABLE,
+                    "인덱스를 사용할 수 없는 조건입니다: " + notIndexable.getOperator() + " " + notIndexable.getArg(0)));
+        }
+        if (find(predicate, op -> op.getArgs().stream().anyMatch(arg -> arg instanceof SubQueryExpression)) != null) {
+            return Optional.of(new Rejection(Reason.UNSUPPORTED, "서브쿼리는 사용할 수 없습니다"));
+        }
+        String unbounded = unboundedRange(predicate);
+        if (unbounded != null) {
+            return Optional.of(new Rejection(Reason.UNBOUNDED_RANGE, "범위 조건은 위, 아래를 모두 지정해야 합니다: " + unbounded));
+        }
+        return Optional.empty();
+    }
+
+    private Rejection checkValues(Predicate predicate) {
+        Operation<?> like = find(predicate, op -> LIKE_OPS.contains(op.getOperator()) && leadingWildcard(op.getArg(1)));
+        if (like != null) {
+            return new Rejection(Reason.LEADING_WILDCARD, "% 또는 _ 로 시작하는 like 패턴은 사용할 수 없습니다: " + like.getArg(0));
+        }
+        Operation<?> emptyPrefix = find(predicate, op -> op.getOperator() == Ops.STARTS_WITH && emptyString(op.getArg(1)));
+        if (emptyPrefix != null) {
+            return new Rejection(Reason.LEADING_WILDCARD, "빈 문자열로 시작하는 조건은 사용할 수 없습니다: " + emptyPrefix.getArg(0));
+        }
+        Operation<?> in = find(predicate, op -> (op.getOperator() == Ops.IN || op.getOperator() == Ops.NOT_IN)
+                && sizeOf(op.getArg(1)) > maxInSize);
+        if (in != null) {
+            return new Rejection(Reason.IN_SIZE, "in 절 값은 " + maxInSize + "개까지 사용할 수 있습니다: " + in.getArg(0));
+        }
+        return null;
+    }
+
+    // and, or, not 으로 묶인 단계 수 (단일 비교는 1)
+    private static int depthOf(Expression<?> expression) {
+        if (!(expression instanceof Operation)) {
+            return 0;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        Operator operator = operation.getOperator();
+        if (operator != Ops.AND && operator != Ops.OR && operator != Ops.NOT) {
+            return 1;
+        }
+        int depth = 0;
+        for (Expression<?> arg : operation.getArgs()) {
+            // 같은 연산이 이어진 경우(a and b and c)는 한 단계로 본다
+            int argDepth = depthOf(arg);
+            if (arg instanceof Operation && ((Operation<?>) arg).getOperator() == operator) {
+                argDepth--;
+            }
+            depth = Math.max(depth, argDepth);
+        }
+        return depth + 1;
+    }
+
+    /**
+     * and 로 묶인 조건마다 한쪽(>, >=)만 있고 반대쪽(<, <=)이 없는 경로를 찾는다
+     * or 의 각 갈래와 not 안쪽은 따로 검사한다. between 은 양쪽이 막혀 있다
+     */
+    private static String unboundedRange(Expression<?> expression) {
+        List<Expression<?>> conjuncts = new ArrayList<>();
+        flattenAnd(expression, conjuncts);
+        Set<Expression<?>> lower = new HashSet<>();
+        Set<Expression<?>> upper = new HashSet<>();
+        for (Expression<?> conjunct : conjuncts) {
+            if (!(conjunct instanceof Operation)) {
+                continue;
+            }
+            Operation<?> operation = (Operation<?>) conjunct;
+            Operator operator = operation.getOperator();
+            if (operator == Ops.OR || operator == Ops.NOT) {
+                for (Expression<?> arg : operation.getArgs()) {
+                    String unbounded = unboundedRange(arg);
+                    if (unbounded != null) {
+                        return unbounded;
+                    }
+                }
+            } else if (LOWER_BOUND_OPS.contains(operator)) {
+                lower.add(operation.getArg(0));
+            } else if (UPPER_BOUND_OPS.contains(operator)) {
+                upper.add(operation.getArg(0));
+            }
+        }
+        for (Expression<?> path : lower) {
+            if (!upper.contains(path)) {
+                return path.toString();
+            }
+        }
+        for (Expression<?> path : upper) {
+            if (!lower.contains(path)) {
+                return path.toString();
+            }
+        }
+        return null;
+    }
+
+    private static void flattenAnd(Expression<?> expression, List<Expression<?>> conjuncts) {
+        if (expression instanceof Operation && ((Operation<?>) expression).getOperator() == Ops.AND) {
+            for (Expression<?> arg : ((Operation<?>) expression).getArgs()) {
+                flattenAnd(arg, conjuncts);
+            }
+        } else {
+            conjuncts.add(expression);
+        }
+    }
+
+    // 조건을 만족하는 첫 연산 (깊이 우선)
+    private static Operation<?> find(Expression<?> expression, java.util.function.Predicate<Operation<?>> test) {
+        if (!(expression instanceof Operation)) {
+            return null;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        if (test.test(operation)) {
+            return operation;
+        }
+        for (Expression<?> arg : operation.getArgs()) {
+            Operation<?> found = find(arg, test);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static boolean leadingWildcard(Expression<?> pattern) {
+        if (!(pattern instanceof Constant)) {
+            // 다른 컬럼이나 식과 비교하는 패턴은 값을 알 수 없다
+            return true;
+        }
+        Object value = ((Constant<?>) pattern).getConstant();
+        return value instanceof String && (((String) value).startsWith("%") || ((String) value).startsWith("_"));
+    }
+
+    private static boolean emptyString(Expression<?> value) {
+        return value instanceof Constant && "".equals(((Constant<?>) value).getConstant());
+    }
+
+    private static int sizeOf(Expression<?> values) {
+        if (values instanceof Constant && ((Constant<?>) values).getConstant() instanceof Collection) {
+            return ((Collection<?>) ((Constant<?>) values).getConstant()).size();
+        }
+        return 1;
+    }
+
+    private static final class Rejection {
+
+        private final Reason reason;
+        private final String message;
+
+        private Rejection(Reason reason, String message) {
+            this.reason = reason;
+            this.message = message;
+        }
+    }
+
+    private static final class ShapeVisitor implements Visitor<Void, StringBuilder> {
+
+        private static final ShapeVisitor INSTANCE = new ShapeVisitor();
+
+        @Override
+        public Void visit(Constant<?> expr, StringBuilder shape) {
+            shape.append(expr.getConstant() instanceof Collection ? "?*" : "?");
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, StringBuilder shape) {
+            shape.append(expr.getType().getSimpleName());
+            return visitArgs(expr.getArgs(), shape);
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, StringBuilder shape) {
+            shape.append(expr.getOperator().name());
+            return visitArgs(expr.getArgs(), shape);
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, StringBuilder shape) {
+            shape.append('?');
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, StringBuilder shape) {
+            shape.append(expr);
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, StringBuilder shape) {
+            shape.append("subquery");
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, StringBuilder shape) {
+            shape.append(expr.getTemplate());
+            return visitArgs(expr.getArgs(), shape);
+        }
+
+        private Void visitArgs(List<?> args, StringBuilder shape) {
+            shape.append('(');
+            for (Object arg : args) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, shape);
+                } else {
+                    shape.append(arg);
+                }
+                shape.append(',');
+            }
+            shape.append(')');
+            return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.study.querydsl.repository.support;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// PredicateCostGuard 가 실행을 거부한 조건. API 요청이면 400 으로 응답한다
+@Getter
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class PredicateTooExpensiveException extends RuntimeException {
+
+    private final PredicateCostGuard.Reason reason;
+
+    public PredicateTooExpensiveException(PredicateCostGuard.Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
@@ -75,8 +75,9 @@ public abstract class Querydsl4RepositorySupport {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaQuery).fetch();
+        // content 쿼리에서 order by, fetch join, 불필요한 left join 을 걷어낸 count 쿼리
         return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+                QuerydslCountQuery.countOf(getEntityManager(), jpaQuery));
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
@@ -86,6 +87,6 @@ public abstract class Querydsl4RepositorySupport {
                 jpaContentQuery).fetch();
         JPAQuery countResult = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+                QuerydslCountQuery.countOf(getEntityManager(), countResult));
     }
 }
\ No newline at end of file
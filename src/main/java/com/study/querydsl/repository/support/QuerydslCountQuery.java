@@ -0,0 +1,308 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * content 쿼리의 QueryMetadata 로부터 count 쿼리를 만든다
+ *
+ * - order by, projection, offset/limit 은 버린다
+ * - fetch join 은 일반 join 으로 바꾼다
+ * - where, group by, having, 다른 join 어디에서도 참조하지 않는 to-one left join 은 제거한다
+ *   (to-one left join 은 row 수를 바꾸지 않는다. 컬렉션 join, on 절이 있는 join 은 그대로 둔다)
+ * - group by, distinct 가 있으면 그룹을 가져오지 않고 DB 에서 그룹 수를 센다
+ *   키가 하나면 count(distinct), 여러 개거나 having 이 있으면 그룹별 대표 id 서브쿼리
+ */
+final class QuerydslCountQuery {
+
+    private QuerydslCountQuery() {
+    }
+
+    static LongSupplier countOf(EntityManager entityManager, JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        List<Expression<?>> groupBy = source.getGroupBy();
+
+        // distinct 는 projection 을 그룹 키로 보고 센다
+        if (source.isDistinct()) {
+            if (!groupBy.isEmpty()) {
+                return streamCount(entityManager, source, distinctKeys(source));
+            }
+            List<Expression<?>> keys = distinctKeys(source);
+            if (keys.size() == 1) {
+                return keyCount(new JPAQuery<Void>(entityManager, countMetadata(source, false)), keys.get(0));
+            }
+            return groupCount(entityManager, source, keys);
+        }
+
+        if (groupBy.isEmpty()) {
+            JPAQuery<?> countQuery = new JPAQuery<Void>(entityManager, countMetadata(source, false));
+            Expression<?> root = source.getJoins().get(0).getTarget();
+            return () -> {
+                Long count = countQuery.select(Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_AGG, root)).fetchOne();
+                return count != null ? count : 0L;
+            };
+        }
+        // group by 컬럼이 하나이고 having 이 없으면 그룹 수는 count(distinct) 로 DB 에서 센다
+        if (groupBy.size() == 1 && source.getHaving() == null) {
+            return keyCount(new JPAQuery<Void>(entityManager, countMetadata(source, false)), groupBy.get(0));
+        }
+        return groupCount(entityManager, source, groupBy);
+    }
+
+    // count(distinct) 는 null 을 세지 않으므로 null 키가 있으면 하나 더한다
+    private static LongSupplier keyCount(JPAQuery<?> countQuery, Expression<?> key) {
+        NumberExpression<Long> distinctKeys = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, key);
+        NumberExpression<Long> nullKey = new CaseBuilder()
+                .when(Expressions.booleanOperation(Ops.IS_NULL, key)).then(1L)
+                .otherwise(0L)
+                .max();
+        return () -> {
+            Tuple count = countQuery.select(distinctKeys, nullKey).fetchOne();
+            if (count == null) {
+                return 0L;
+            }
+            Long keys = count.get(distinctKeys);
+            Long nulls = count.get(nullKey);
+            return (keys != null ? keys : 0L) + (nulls != null ? nulls : 0L);
+        };
+    }
+
+    // 그룹마다 대표 row(가장 작은 id) 하나를 고르는 서브쿼리로 DB 에서 센다
+    // JPQL 은 from 절 서브쿼리나 count(distinct 여러 컬럼) 을 지원하지 않으므로 where in 서브쿼리를 쓴다
+    // select count(g) from Member g where g.id in (select min(m.id) from Member m ... group by k1, k2 having ...)
+    private static LongSupplier groupCount(EntityManager entityManager, QueryMetadata source, List<Expression<?>> keys) {
+        Expression<?> root = source.getJoins().get(0).getTarget();
+        if (!(root instanceof EntityPath)) {
+            return streamCount(entityManager, source, keys);
+        }
+        EntityType<?> entityType = entityManager.getMetamodel().entity(root.getType());
+        if (!entityType.hasSingleIdAttribute()) {
+            return streamCount(entityManager, source, keys);
+        }
+        String id = entityType.getId(entityType.getIdType().getJavaType()).getName();
+
+        QueryMetadata grouped = countMetadata(source, !source.isDistinct());
+        if (source.isDistinct()) {
+            keys.forEach(grouped::addGroupBy);
+        }
+        PathBuilder<?> groupRoot = new PathBuilder<>(root.getType(), ((EntityPath<?>) root).getMetadata());
+        JPAQuery<Comparable> representatives = new JPAQuery<Void>(entityManager, grouped)
+                .select(groupRoot.getComparable(id, Comparable.class).min());
+
+        PathBuilder<?> countRoot = new PathBuilder<>(root.getType(), ((EntityPath<?>) root).getMetadata().getName() + "Group");
+        JPAQuery<Long> countQuery = new JPAQuery<Void>(entityManager)
+                .select(countRoot.count())
+                .from(countRoot)
+                .where(countRoot.getComparable(id, Comparable.class).in(representatives));
+        copyParams(source, countQuery.getMetadata());
+        return () -> {
+            Long count = countQuery.fetchOne();
+            return count != null ? count : 0L;
+        };
+    }
+
+    // 대표 row 를 고를 수 없는 경우(복합 id, distinct + group by)만 그룹을 스트림으로 읽으며 센다 (목록으로 모으지 않는다)
+    private static LongSupplier streamCount(EntityManager entityManager, QueryMetadata source, List<Expression<?>> keys) {
+        QueryMetadata metadata = countMetadata(source, true);
+        metadata.setDistinct(source.isDistinct());
+        JPAQuery<?> countQuery = new JPAQuery<Void>(entityManager, metadata);
+        Expression<?>[] selection = keys.toArray(new Expression<?>[0]);
+        return () -> {
+            try (Stream<?> groups = countQuery.select(selection).createQuery().getResultStream()) {
+                return groups.count();
+            }
+        };
+    }
+
+    // distinct 비교 대상. projection 이 없으면 from 의 root
+    private static List<Expression<?>> distinctKeys(QueryMetadata source) {
+        Expression<?> projection = source.getProjection();
+        if (projection == null) {
+            return List.of(source.getJoins().get(0).getTarget());
+        }
+        if (projection instanceof FactoryExpression) {
+            return ((FactoryExpression<?>) projection).getArgs();
+        }
+        return List.of(projection);
+    }
+
+    // content 쿼리에서 order by, projection, offset/limit, fetch, 쓰지 않는 to-one left join 을 뺀 메타데이터
+    static QueryMetadata countMetadata(QueryMetadata source, boolean withGroupBy) {
+        List<JoinExpression> joins = source.getJoins();
+
+        Set<Expression<?>> referenced = new HashSet<>();
+        collectRoots(source.getWhere(), referenced);
+        collectRoots(source.getHaving(), referenced);
+        for (Expression<?> groupBy : source.getGroupBy()) {
+            collectRoots(groupBy, referenced);
+        }
+        // distinct 는 projection 을 그룹 키로 쓰므로 projection 이 참조하는 join 도 남긴다
+        if (source.isDistinct()) {
+            collectRoots(source.getProjection(), referenced);
+        }
+
+        // 뒤의 join 이 앞의 join alias 를 참조할 수 있으므로 뒤에서부터 판단한다
+        boolean[] keep = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i == 0 || !isRemovable(join, referenced)) {
+                keep[i] = true;
+                collectRoots(join.getTarget(), referenced);
+                collectRoots(join.getCondition(), referenced);
+            }
+        }
+
+        DefaultQueryMetadata metadata = new DefaultQueryMetadata();
+        for (int i = 0; i < joins.size(); i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            JoinExpression join = joins.get(i);
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!JPAQueryMixin.FETCH.equals(flag) && !JPAQueryMixin.FETCH_ALL_PROPERTIES.equals(flag)) {
+                    metadata.addJoinFlag(flag);
+                }
+            }
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        if (withGroupBy) {
+            for (Expression<?> groupBy : source.getGroupBy()) {
+                metadata.addGroupBy(groupBy);
+            }
+        }
+        if (source.getHaving() != null) {
+            metadata.addHaving(source.getHaving());
+        }
+        copyParams(source, metadata);
+        return metadata;
+    }
+
+    private static boolean isRemovable(JoinExpression join, Set<Expression<?>> referenced) {
+        if (join.getType() != JoinType.LEFTJOIN || join.getCondition() != null) {
+            return false;
+        }
+        // leftJoin(member.team, team) 의 target 은 alias(member.team, team)
+        if (!(join.getTarget() instanceof Operation) || ((Operation<?>) join.getTarget()).getOperator() != Ops.ALIAS) {
+            return false;
+        }
+        Operation<?> alias = (Operation<?>) join.getTarget();
+        Expression<?> association = alias.getArg(0);
+        if (association instanceof CollectionExpression || association instanceof MapExpression) {
+            return false;
+        }
+        Expression<?> aliasPath = alias.getArg(1);
+        return aliasPath instanceof Path && !referenced.contains(((Path<?>) aliasPath).getRoot());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void copyParams(QueryMetadata source, QueryMetadata target) {
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Expression<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    // 표현식 안에서 참조하는 path 의 root(alias) 를 모은다
+    private static final class RootCollector implements Visitor<Void, Set<Expression<?>>> {
+
+        static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> context) {
+            for (Expression<?> arg : expr.getArgs()) {
+                collectRoots(arg, context);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> context) {
+            for (Expression<?> arg : expr.getArgs()) {
+                collectRoots(arg, context);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> context) {
+            context.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> context) {
+            QueryMetadata metadata = expr.getMetadata();
+            collectRoots(metadata.getProjection(), context);
+            collectRoots(metadata.getWhere(), context);
+            collectRoots(metadata.getHaving(), context);
+            for (JoinExpression join : metadata.getJoins()) {
+                collectRoots(join.getTarget(), context);
+                collectRoots(join.getCondition(), context);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, context);
+                }
+            }
+            return null;
+        }
+    }
+}
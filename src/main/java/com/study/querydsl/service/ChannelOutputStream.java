@@ -0,0 +1,57 @@
+package com.study.querydsl.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// direct buffer 에 모았다가 가득 차거나 flush 할 때 FileChannel 에 쓴다. 채널은 닫지 않는다
+final class ChannelOutputStream extends OutputStream {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    ChannelOutputStream(FileChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
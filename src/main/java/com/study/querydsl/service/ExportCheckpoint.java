@@ -0,0 +1,70 @@
+package com.study.querydsl.service;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * export 를 이어서 받기 위한 기록 (대상 파일 옆의 .checkpoint)
+ *
+ * chunk 를 파일에 쓰고 force 한 뒤에만 갱신한다.
+ * 이어서 받을 때는 position 뒤의 내용(중간에 끊긴 chunk)을 잘라내고 lastMemberId 다음부터 읽는다.
+ */
+@Getter
+final class ExportCheckpoint {
+
+    private final ExportFormat format;
+    private final long lastMemberId;
+    private final long position;
+
+    ExportCheckpoint(ExportFormat format, long lastMemberId, long position) {
+        this.format = format;
+        this.lastMemberId = lastMemberId;
+        this.position = position;
+    }
+
+    static Path pathOf(Path target) {
+        return target.resolveSibling(target.getFileName() + ".checkpoint");
+    }
+
+    static Optional<ExportCheckpoint> read(Path target) throws IOException {
+        Path path = pathOf(target);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return Optional.of(new ExportCheckpoint(
+                ExportFormat.valueOf(properties.getProperty("format")),
+                Long.parseLong(properties.getProperty("lastMemberId")),
+                Long.parseLong(properties.getProperty("position"))));
+    }
+
+    // 임시 파일에 쓰고 바꿔치기해서 반쯤 쓰인 기록이 남지 않게 한다
+    void write(Path target) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("format", format.name());
+        properties.setProperty("lastMemberId", Long.toString(lastMemberId));
+        properties.setProperty("position", Long.toString(position));
+        Path path = pathOf(target);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void delete(Path target) throws IOException {
+        Files.deleteIfExists(pathOf(target));
+    }
+}
@@ -0,0 +1,12 @@
+package com.study.querydsl.service;
+
+/**
+ * 회원 export 파일 포맷
+ *
+ * CSV : 헤더(memberId,username,age,teamId,teamName) 한 줄 + 회원 한 줄씩. null 은 빈 칸
+ * COLUMNS : chunk 마다 { int 바이트 수, MemberColumnsCodec 블록 } 을 이어 붙인다
+ */
+public enum ExportFormat {
+    CSV,
+    COLUMNS
+}
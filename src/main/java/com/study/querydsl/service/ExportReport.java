@@ -0,0 +1,28 @@
+package com.study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+// rows, rowsPerSecond 는 이번 실행에서 쓴 건수 (이어서 받은 경우 이전 실행분 제외)
+@Getter
+@ToString
+public class ExportReport {
+
+    private final long rows;
+    private final long bytes;
+    private final Long lastMemberId;
+    private final boolean resumed;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+
+    public ExportReport(long rows, long bytes, Long lastMemberId, boolean resumed, long elapsedNanos) {
+        this.rows = rows;
+        this.bytes = bytes;
+        this.lastMemberId = lastMemberId;
+        this.resumed = resumed;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        this.rowsPerSecond = elapsedNanos > 0 ? rows * 1_000_000_000d / elapsedNanos : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+public class IngestReport {
+
+    private final long rows;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+
+    public IngestReport(long rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        this.rowsPerSecond = elapsedNanos > 0 ? rows * 1_000_000_000d / elapsedNanos : 0;
+    }
+}
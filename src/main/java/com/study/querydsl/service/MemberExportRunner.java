@@ -0,0 +1,32 @@
+package com.study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+// member.export.path 를 지정해서 실행하면 시작할 때 export 한다 (같은 path 로 다시 실행하면 이어서 받는다)
+@Component
+@ConditionalOnProperty("member.export.path")
+public class MemberExportRunner implements ApplicationRunner {
+
+    private final MemberExportService memberExportService;
+    private final Path path;
+    private final ExportFormat format;
+
+    public MemberExportRunner(MemberExportService memberExportService,
+                              @Value("${member.export.path}") Path path,
+                              @Value("${member.export.format:csv}") String format) {
+        this.memberExportService = memberExportService;
+        this.path = path;
+        this.format = ExportFormat.valueOf(format.toUpperCase());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        memberExportService.export(path, format);
+    }
+}
@@ -0,0 +1,229 @@
+package com.study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.codec.MemberColumnsCodec;
+import com.study.querydsl.dto.MemberTeamRows;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * member left join team 전체를 파일로 내보낸다 (오프라인 분석용)
+ *
+ * member.id 기준 keyset 으로 chunk-size 건씩 짧은 readOnly 트랜잭션에서 읽고, 트랜잭션 밖에서 파일에 쓴다.
+ * 호출한 쪽에 트랜잭션이 있어도 chunk 마다 새 트랜잭션(REQUIRES_NEW)을 열어 바로 끝내므로
+ * export 가 길어져도 커넥션 하나와 MVCC 스냅샷을 붙잡지 않는다 (커밋된 데이터만 읽는다).
+ * 힙에는 한 chunk 만 올라가고 파일 쓰기는 buffer-size 크기의 direct buffer 를 거친다.
+ * chunk 마다 ExportCheckpoint 를 남기므로 중간에 끊기면 같은 파일로 다시 호출해서 이어서 받는다.
+ */
+@Slf4j
+@Service
+public class MemberExportService {
+
+    private static final String CSV_HEADER = "memberId,username,age,teamId,teamName\n";
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int chunkSize;
+    private final int bufferSize;
+
+    public MemberExportService(JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${member.export.chunk-size:10000}") int chunkSize,
+                               @Value("${member.export.buffer-size:4194304}") int bufferSize) {
+        if (chunkSize < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("member.export.chunk-size, buffer-size는 1 이상이어야 합니다");
+        }
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkSize = chunkSize;
+        this.bufferSize = bufferSize;
+    }
+
+    public ExportReport export(Path target, ExportFormat format) throws IOException {
+        long start = System.nanoTime();
+        Optional<ExportCheckpoint> checkpoint = ExportCheckpoint.read(target);
+        if (checkpoint.isPresent() && checkpoint.get().getFormat() != format) {
+            throw new IllegalStateException("이전 export 와 포맷이 다릅니다: " + checkpoint.get().getFormat());
+        }
+
+        try (FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            Long lastMemberId = null;
+            if (checkpoint.isPresent()) {
+                // 마지막 checkpoint 뒤에 쓰다 만 내용은 버린다
+                lastMemberId = checkpoint.get().getLastMemberId();
+                channel.truncate(checkpoint.get().getPosition());
+                channel.position(checkpoint.get().getPosition());
+                log.info("member export resumed: {} after memberId {}", target, lastMemberId);
+            } else {
+                channel.truncate(0);
+            }
+            long startPosition = channel.position();
+
+            ChannelOutputStream out = new ChannelOutputStream(channel, ByteBuffer.allocateDirect(bufferSize));
+            ChunkWriter writer = format == ExportFormat.CSV ? new CsvWriter(out) : new ColumnsWriter(out);
+            if (checkpoint.isEmpty()) {
+                writer.begin();
+            }
+
+            long rows = 0;
+            while (true) {
+                List<Tuple> chunk = fetchChunk(lastMemberId);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                writer.write(rowsOf(chunk));
+                out.flush();
+                channel.force(false);
+                lastMemberId = chunk.get(chunk.size() - 1).get(0, Long.class);
+                new ExportCheckpoint(format, lastMemberId, channel.position()).write(target);
+
+                rows += chunk.size();
+                long elapsed = System.nanoTime() - start;
+                log.info("member export progress: {} rows, last memberId {}, {} rows/s",
+                        rows, lastMemberId, (long) (rows * 1_000_000_000d / elapsed));
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            out.flush();
+            ExportCheckpoint.delete(target);
+
+            ExportReport report = new ExportReport(rows, channel.position() - startPosition, lastMemberId,
+                    checkpoint.isPresent(), System.nanoTime() - start);
+            log.info("member export finished: {} {}", target, report);
+            return report;
+        }
+    }
+
+    // 엔티티가 아닌 컬럼만 읽으므로 영속성 컨텍스트에 쌓이지 않는다
+    private List<Tuple> fetchChunk(Long lastMemberId) {
+        return readOnlyTransaction.execute(status -> queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(lastMemberId != null ? member.id.gt(lastMemberId) : null)
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .fetch());
+    }
+
+    private static MemberTeamRows rowsOf(List<Tuple> chunk) {
+        return handler -> {
+            for (Tuple row : chunk) {
+                handler.row(
+                        row.get(0, Long.class),
+                        row.get(1, String.class),
+                        row.get(2, Integer.class),
+                        row.get(3, Long.class),
+                        row.get(4, String.class));
+            }
+        };
+    }
+
+    private interface ChunkWriter {
+
+        // 새 파일일 때만 호출
+        void begin() throws IOException;
+
+        // 호출이 끝나면 chunk 전체가 out 에 쓰여 있어야 한다
+        void write(MemberTeamRows rows) throws IOException;
+    }
+
+    private static final class CsvWriter implements ChunkWriter {
+
+        private final Writer writer;
+
+        CsvWriter(ChannelOutputStream out) {
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write(CSV_HEADER);
+            writer.flush();
+        }
+
+        @Override
+        public void write(MemberTeamRows rows) throws IOException {
+            rows.forEach((memberId, username, age, teamId, teamName) -> {
+                writer.write(Long.toString(memberId));
+                writer.write(',');
+                writeField(username);
+                writer.write(',');
+                writer.write(Integer.toString(age));
+                writer.write(',');
+                if (teamId != null) {
+                    writer.write(teamId.toString());
+                }
+                writer.write(',');
+                writeField(teamName);
+                writer.write('\n');
+            });
+            writer.flush();
+        }
+
+        // 쉼표, 따옴표, 줄바꿈이 있으면 따옴표로 감싸고 따옴표는 두번 쓴다 (RFC 4180)
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class ColumnsWriter implements ChunkWriter {
+
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+        ColumnsWriter(ChannelOutputStream out) {
+            this.out = new DataOutputStream(out);
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void write(MemberTeamRows rows) throws IOException {
+            block.reset();
+            MemberColumnsCodec.encode(rows, block);
+            out.writeInt(block.size());
+            block.writeTo(out);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 대량 회원 저장
+ *
+ * batch-size 건마다 flush(JDBC batch insert) 후 clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * hibernate.jdbc.batch_size, hibernate.order_inserts 는 application.yml 에서 같은 값으로 설정한다.
+ * 저장되지 않은 Team 은 회원보다 먼저 저장한다.
+ * team.getMembers() 컬렉션이 계속 커지지 않도록 Member 는 setTeam 으로 팀을 지정해서 넘기는 것이 좋다.
+ *
+ * flush/clear 가 호출한 쪽 영속성 컨텍스트를 건드리지 않도록 항상 새 트랜잭션(REQUIRES_NEW)에서 저장하고 커밋한다.
+ * 호출한 쪽 트랜잭션이 있으면 그 트랜잭션은 잠시 멈추고 커넥션을 하나 더 쓴다.
+ * 호출한 쪽 트랜잭션에서 persist 만 하고 커밋하지 않은 Team 은 보이지 않으므로, 새 Team 은 id 없이 넘겨서 여기서 저장하게 한다.
+ */
+@Slf4j
+@Service
+public class MemberIngestService {
+
+    private final EntityManager em;
+    private final int batchSize;
+
+    public MemberIngestService(EntityManager em, @Value("${member.ingest.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("member.ingest.batch-size는 1 이상이어야 합니다");
+        }
+        this.em = em;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public IngestReport ingest(Stream<Member> members) {
+        long start = System.nanoTime();
+        long rows = 0;
+
+        Iterator<Member> iterator = members.iterator();
+        while (iterator.hasNext()) {
+            Member member = iterator.next();
+            Team team = member.getTeam();
+            if (team != null && team.getId() == null) {
+                em.persist(team);
+            }
+            em.persist(member);
+
+            if (++rows % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        IngestReport report = new IngestReport(rows, System.nanoTime() - start);
+        log.info("member ingest rows={} elapsed={}ms rows/sec={}",
+                report.getRows(), report.getElapsedMillis(), String.format("%.0f", report.getRowsPerSecond()));
+        return report;
+    }
+}
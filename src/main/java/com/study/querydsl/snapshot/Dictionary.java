@@ -0,0 +1,52 @@
+package com.study.querydsl.snapshot;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 문자열 <-> int 코드. null 은 코드 -1
+// encode 는 한 스레드에서만 호출한다. codeOf, decode 는 encode 와 동시에 호출해도 된다 (MemberColumns 가 버전끼리 공유)
+final class Dictionary {
+
+    static final int NULL = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private volatile int size;
+
+    int encode(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = size;
+            String[] current = values;
+            if (code == current.length) {
+                current = Arrays.copyOf(current, code + (code >> 1));
+            }
+            current[code] = value;
+            values = current;
+            size = code + 1;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    // 없는 값이면 -1
+    int codeOf(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : NULL;
+    }
+
+    String decode(int code) {
+        return code == NULL ? null : values[code];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,129 @@
+package com.study.querydsl.snapshot;
+
+/**
+ * long -> long 해시 맵 (open addressing, linear probing)
+ *
+ * 항목당 약 32 byte (load factor 0.5). key 0 은 빈 칸 표시로 쓰므로 넣을 수 없다.
+ */
+final class LongLongHashMap {
+
+    private static final long EMPTY = 0L;
+
+    private final long missingValue;
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    LongLongHashMap(int expectedSize, long missingValue) {
+        this.missingValue = missingValue;
+        this.keys = new long[tableSize(expectedSize)];
+        this.values = new long[keys.length];
+    }
+
+    // 이전 값, 없었으면 missingValue
+    long put(long key, long value) {
+        checkKey(key);
+        int i = indexOf(keys, key);
+        if (keys[i] == key) {
+            long old = values[i];
+            values[i] = value;
+            return old;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return missingValue;
+    }
+
+    long get(long key) {
+        if (key == EMPTY) {
+            return missingValue;
+        }
+        int i = indexOf(keys, key);
+        return keys[i] == key ? values[i] : missingValue;
+    }
+
+    // 지운 값, 없었으면 missingValue
+    long remove(long key) {
+        if (key == EMPTY) {
+            return missingValue;
+        }
+        int i = indexOf(keys, key);
+        if (keys[i] != key) {
+            return missingValue;
+        }
+        long old = values[i];
+        shiftBack(i);
+        size--;
+        return old;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long estimatedBytes() {
+        return 32 + 2 * (16 + 8L * keys.length);
+    }
+
+    private static int indexOf(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        int i = hole;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != EMPTY) {
+                int i = indexOf(keys, oldKeys[k]);
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+        return Math.max(capacity, 4);
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("0 은 key 로 쓸 수 없습니다");
+        }
+    }
+}
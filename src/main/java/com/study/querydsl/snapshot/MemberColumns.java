@@ -0,0 +1,259 @@
+package com.study.querydsl.snapshot;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * member left join team 결과를 컬럼별 배열로 저장한 스냅샷 (버전 하나)
+ *
+ * username, team.name 은 사전(Dictionary) 코드로 저장해서 조건 비교가 int 비교가 된다.
+ *
+ * apply 는 바뀐 row 를 tombstone bitmap 으로 지우고 새 값을 배열 끝(size 뒤)에 붙인 다음 버전을 만든다.
+ * 컬럼 배열은 버전끼리 공유하고 이전 버전이 읽는 [0, size) 는 바꾸지 않으므로, 이전 버전을 읽는 스레드와 동시에 apply 해도 된다.
+ * bitmap 만 버전마다 복사한다. 지워진 row 가 1/4 을 넘으면 새 배열로 모은다.
+ * apply 는 한 스레드에서만 호출한다 (MemberSnapshot.refresh).
+ */
+final class MemberColumns {
+
+    static final long NO_TEAM = Long.MIN_VALUE;
+    private static final int ANY = -2;
+    private static final long NO_ROW = -1L;
+
+    private final int size;
+    private final int deleted;
+    private final long[] memberIds;
+    private final int[] ages;
+    private final int[] usernameCodes;
+    private final long[] teamIds;
+    private final int[] teamNameCodes;
+    // 지워진 row. 버전마다 따로 가진다
+    private final long[] tombstones;
+    private final Dictionary usernames;
+    private final Dictionary teamNames;
+    // member id -> 살아있는 row. apply 에서만 쓴다
+    private final LongLongHashMap rowOfMember;
+
+    private MemberColumns(Builder builder) {
+        this(builder.size, 0, builder.memberIds, builder.ages, builder.usernameCodes, builder.teamIds,
+                builder.teamNameCodes, new long[words(builder.size)], builder.usernames, builder.teamNames,
+                builder.rowOfMember);
+    }
+
+    private MemberColumns(int size, int deleted, long[] memberIds, int[] ages, int[] usernameCodes, long[] teamIds,
+                          int[] teamNameCodes, long[] tombstones, Dictionary usernames, Dictionary teamNames,
+                          LongLongHashMap rowOfMember) {
+        this.size = size;
+        this.deleted = deleted;
+        this.memberIds = memberIds;
+        this.ages = ages;
+        this.usernameCodes = usernameCodes;
+        this.teamIds = teamIds;
+        this.teamNameCodes = teamNameCodes;
+        this.tombstones = tombstones;
+        this.usernames = usernames;
+        this.teamNames = teamNames;
+        this.rowOfMember = rowOfMember;
+    }
+
+    // MemberSearchPredicates 와 같은 조건. 값이 없는 조건은 건너뛴다
+    List<MemberTeamDto> search(MemberSearchCondition condition) {
+        Filter filter = new Filter(condition);
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (int i = filter.next(0); i >= 0; i = filter.next(i + 1)) {
+            result.add(row(i));
+        }
+        return result;
+    }
+
+    // search 와 같은 결과를 dto 없이 컬럼 값으로 넘긴다
+    void forEach(MemberSearchCondition condition, MemberTeamRows.RowHandler handler) throws IOException {
+        Filter filter = new Filter(condition);
+        for (int i = filter.next(0); i >= 0; i = filter.next(i + 1)) {
+            handler.row(
+                    memberIds[i],
+                    usernames.decode(usernameCodes[i]),
+                    ages[i],
+                    teamIds[i] == NO_TEAM ? null : teamIds[i],
+                    teamNames.decode(teamNameCodes[i]));
+        }
+    }
+
+    // 살아있는 회원 수
+    int size() {
+        return size - deleted;
+    }
+
+    /**
+     * 바뀐 row 를 반영한 다음 버전
+     * changedIds 에 있는 회원은 지우고 rows 로 다시 넣는다 (rows 에 없으면 삭제된 회원)
+     */
+    MemberColumns apply(Set<Long> changedIds, Map<Long, MemberTeamDto> rows) {
+        int nextSize = size + rows.size();
+        long[] nextTombstones = Arrays.copyOf(tombstones, words(nextSize));
+        int nextDeleted = deleted;
+        for (Long memberId : changedIds) {
+            long row = rowOfMember.remove(memberId);
+            if (row != NO_ROW) {
+                nextTombstones[(int) (row >>> 6)] |= 1L << row;
+                nextDeleted++;
+            }
+        }
+
+        // 공간이 모자랄 때만 배열을 새로 만든다. 이전 버전은 자기 배열을 계속 읽는다
+        long[] nextMemberIds = memberIds;
+        int[] nextAges = ages;
+        int[] nextUsernameCodes = usernameCodes;
+        long[] nextTeamIds = teamIds;
+        int[] nextTeamNameCodes = teamNameCodes;
+        if (nextSize > memberIds.length) {
+            int capacity = Math.max(nextSize, size + (size >> 1));
+            nextMemberIds = Arrays.copyOf(memberIds, capacity);
+            nextAges = Arrays.copyOf(ages, capacity);
+            nextUsernameCodes = Arrays.copyOf(usernameCodes, capacity);
+            nextTeamIds = Arrays.copyOf(teamIds, capacity);
+            nextTeamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+        }
+        int i = size;
+        for (MemberTeamDto row : rows.values()) {
+            nextMemberIds[i] = row.getMemberId();
+            nextAges[i] = row.getAge();
+            nextUsernameCodes[i] = usernames.encode(row.getUsername());
+            nextTeamIds[i] = row.getTeamId() != null ? row.getTeamId() : NO_TEAM;
+            nextTeamNameCodes[i] = teamNames.encode(row.getTeamName());
+            rowOfMember.put(row.getMemberId(), i);
+            i++;
+        }
+
+        MemberColumns next = new MemberColumns(nextSize, nextDeleted, nextMemberIds, nextAges, nextUsernameCodes,
+                nextTeamIds, nextTeamNameCodes, nextTombstones, usernames, teamNames, rowOfMember);
+        return nextDeleted * 4 > nextSize ? next.compact() : next;
+    }
+
+    // 지워진 row 와 더 이상 쓰지 않는 사전 값을 뺀 새 배열
+    MemberColumns compact() {
+        Builder builder = new Builder(size());
+        for (int i = 0; i < size; i++) {
+            if (!isDeleted(i)) {
+                builder.add(row(i));
+            }
+        }
+        return builder.build();
+    }
+
+    private boolean isDeleted(int row) {
+        return (tombstones[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static int words(int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    private MemberTeamDto row(int i) {
+        return new MemberTeamDto(
+                memberIds[i],
+                usernames.decode(usernameCodes[i]),
+                ages[i],
+                teamIds[i] == NO_TEAM ? null : teamIds[i],
+                teamNames.decode(teamNameCodes[i]));
+    }
+
+    // 조건을 사전 코드로 한번만 바꿔두고 배열을 순서대로 훑는다
+    private final class Filter {
+
+        private final int usernameCode;
+        private final int teamNameCode;
+        private final int ageGoe;
+        private final int ageLoe;
+        private final boolean empty;
+
+        Filter(MemberSearchCondition condition) {
+            this.usernameCode = codeOf(usernames, condition.getUsername());
+            this.teamNameCode = codeOf(teamNames, condition.getTeamName());
+            this.empty = usernameCode == Dictionary.NULL || teamNameCode == Dictionary.NULL;
+            this.ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            this.ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+        }
+
+        // from 부터 조건에 맞는 첫 row 의 index, 없으면 -1
+        int next(int from) {
+            if (empty) {
+                return -1;
+            }
+            for (int i = from; i < size; i++) {
+                int age = ages[i];
+                if (age >= ageGoe
+                        && age <= ageLoe
+                        && (usernameCode == ANY || usernameCodes[i] == usernameCode)
+                        && (teamNameCode == ANY || teamNameCodes[i] == teamNameCode)
+                        && !isDeleted(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // 조건이 없으면 ANY, 사전에 없는 값이면 NULL (결과 없음)
+    private static int codeOf(Dictionary dictionary, String value) {
+        return StringUtils.hasText(value) ? dictionary.codeOf(value) : ANY;
+    }
+
+    static final class Builder {
+
+        private int size;
+        private long[] memberIds;
+        private int[] ages;
+        private int[] usernameCodes;
+        private long[] teamIds;
+        private int[] teamNameCodes;
+        private final Dictionary usernames = new Dictionary();
+        private final Dictionary teamNames = new Dictionary();
+        private final LongLongHashMap rowOfMember;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            this.rowOfMember = new LongLongHashMap(capacity, NO_ROW);
+            this.memberIds = new long[capacity];
+            this.ages = new int[capacity];
+            this.usernameCodes = new int[capacity];
+            this.teamIds = new long[capacity];
+            this.teamNameCodes = new int[capacity];
+        }
+
+        Builder add(MemberTeamDto row) {
+            return add(row.getMemberId(), row.getUsername(), row.getAge(), row.getTeamId(), row.getTeamName());
+        }
+
+        Builder add(long memberId, String username, int age, Long teamId, String teamName) {
+            if (size == memberIds.length) {
+                int capacity = size + (size >> 1);
+                memberIds = Arrays.copyOf(memberIds, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+                teamIds = Arrays.copyOf(teamIds, capacity);
+                teamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+            }
+            memberIds[size] = memberId;
+            ages[size] = age;
+            usernameCodes[size] = usernames.encode(username);
+            teamIds[size] = teamId != null ? teamId : NO_TEAM;
+            teamNameCodes[size] = teamNames.encode(teamName);
+            rowOfMember.put(memberId, size);
+            size++;
+            return this;
+        }
+
+        MemberColumns build() {
+            return new MemberColumns(this);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.study.querydsl.snapshot;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import com.study.querydsl.repository.MemberJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * /v1/members 검색용 메모리 스냅샷 (MemberColumns)
+ *
+ * querydsl.snapshot.enabled=true 일 때만 만든다. 꺼져 있으면 항상 MemberJpaRepository.search 를 사용한다.
+ * 커밋된 Member, Team 변경 이벤트로 바뀐 id 를 모아두고 refresh-interval-ms 마다 그 row 만 다시 읽어 반영한다.
+ * 반영은 바뀐 row 만 컬럼 배열에 덧붙이는 방식이라 스냅샷 크기와 상관없이 바뀐 row 수만큼만 일한다 (MemberColumns.apply).
+ * bulk update/delete 는 어떤 row 가 바뀌었는지 모르므로 전체를 다시 읽는다.
+ *
+ * 반영하지 않은 변경이 있거나 쓰기 트랜잭션 안에서 호출하면 DB 를 조회한다 (기본, max-staleness-ms=0).
+ * max-staleness-ms 를 지정하면 반영하지 않은 가장 오래된 변경이 그보다 오래됐을 때만 DB 를 조회한다.
+ * 그 사이에는 방금 커밋한 클라이언트에게도 변경 전 결과가 나갈 수 있다.
+ * 전체를 다시 읽을 때는 row 를 List 로 모으지 않고 커서로 한 건씩 컬럼 배열에 넣는다.
+ * querydsl.snapshot.search (result=hit|fallback) 로 스냅샷 사용 비율을 볼 수 있다.
+ */
+@Slf4j
+@Component
+public class MemberSnapshot implements DisposableBean {
+
+    private static final int REFRESH_CHUNK = 1000;
+    private static final int RELOAD_FETCH_SIZE = 500;
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberJpaRepository memberJpaRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long refreshIntervalMs;
+    private final long maxStalenessNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Counter hits;
+    private final Counter fallbacks;
+
+    // 반영하지 않은 변경. id -> 변경 순번 (반영하는 동안 다시 바뀐 id 를 지우지 않기 위해)
+    private final Map<Long, Long> pendingMembers = new ConcurrentHashMap<>();
+    private final Map<Long, Long> pendingTeams = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+    // 0 이 아니면 전체를 다시 읽어야 한다 (처음 만들 때, bulk 변경)
+    private final AtomicLong fullReloadRequested = new AtomicLong(-1);
+    // 반영하지 않은 변경이 처음 들어온 시각 (System.nanoTime). 0 이면 없음
+    private final AtomicLong staleSince = new AtomicLong();
+
+    private volatile MemberColumns columns;
+
+    public MemberSnapshot(JPAQueryFactory queryFactory,
+                          MemberJpaRepository memberJpaRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry registry,
+                          @Value("${querydsl.snapshot.enabled:false}") boolean enabled,
+                          @Value("${querydsl.snapshot.refresh-interval-ms:500}") long refreshIntervalMs,
+                          @Value("${querydsl.snapshot.max-staleness-ms:0}") long maxStalenessMs) {
+        this.queryFactory = queryFactory;
+        this.memberJpaRepository = memberJpaRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.hits = registry.counter("querydsl.snapshot.search", "result", "hit");
+        this.fallbacks = registry.counter("querydsl.snapshot.search", "result", "fallback");
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMs);
+        this.scheduler = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    // 변경 이벤트를 받을 수 있게 된 뒤에 처음 읽는다
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (!enabled) {
+            return memberJpaRepository.search(condition);
+        }
+        MemberColumns current = columns;
+        if (current == null || tooStale() || inReadWriteTransaction()) {
+            fallbacks.increment();
+            return memberJpaRepository.search(condition);
+        }
+        hits.increment();
+        return current.search(condition);
+    }
+
+    // search 와 같은 기준으로 고르지만 결과를 dto 목록으로 만들지 않는다
+    // 스냅샷을 못 쓰면 응답을 쓰는 시점에 memberSearch 캐시나 DB 에서 한 row 씩 읽는다 (MemberJpaRepository.searchRows)
+    public MemberTeamRows rows(MemberSearchCondition condition) {
+        if (!enabled) {
+            return handler -> memberJpaRepository.searchRows(condition, handler);
+        }
+        MemberColumns current = columns;
+        if (current == null || tooStale() || inReadWriteTransaction()) {
+            fallbacks.increment();
+            return handler -> memberJpaRepository.searchRows(condition, handler);
+        }
+        hits.increment();
+        return handler -> current.forEach(condition, handler);
+    }
+
+    public boolean isStale() {
+        return fullReloadRequested.get() != 0 || !pendingMembers.isEmpty() || !pendingTeams.isEmpty();
+    }
+
+    // 반영하지 않은 변경이 허용 시간보다 오래됐으면 true
+    private boolean tooStale() {
+        long since = staleSince.get();
+        return since != 0 && System.nanoTime() - since >= maxStalenessNanos;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!enabled || !event.isCommitted() || !(event.concerns(Member.class) || event.concerns(Team.class))) {
+            return;
+        }
+        long sequence = changeSequence.incrementAndGet();
+        staleSince.compareAndSet(0, System.nanoTime());
+        if (event.isBulk(Member.class) || event.isBulk(Team.class)) {
+            fullReloadRequested.set(sequence);
+            return;
+        }
+        event.ids(Member.class).forEach(id -> pendingMembers.put(id, sequence));
+        event.ids(Team.class).forEach(id -> pendingTeams.put(id, sequence));
+    }
+
+    // 스케줄러와 테스트에서 호출
+    synchronized void refresh() {
+        long started = System.nanoTime();
+        try {
+            refreshPending();
+        } finally {
+            // 다 반영했으면 초기화. 읽는 동안 들어온 변경이나 실패로 남은 변경은 처음 시각을 그대로 둔다
+            if (!isStale()) {
+                staleSince.set(0);
+                if (isStale()) {
+                    staleSince.compareAndSet(0, started);
+                }
+            }
+        }
+    }
+
+    private void refreshPending() {
+        long fullReload = fullReloadRequested.get();
+        if (fullReload != 0) {
+            Map<Long, Long> members = new HashMap<>(pendingMembers);
+            Map<Long, Long> teams = new HashMap<>(pendingTeams);
+            MemberColumns.Builder builder = new MemberColumns.Builder(columns != null ? columns.size() : 0);
+            readOnlyTransaction.executeWithoutResult(status -> loadAll(builder));
+            columns = builder.build();
+            // 읽는 동안 들어온 변경은 남겨둔다
+            members.forEach(pendingMembers::remove);
+            teams.forEach(pendingTeams::remove);
+            fullReloadRequested.compareAndSet(fullReload, 0);
+            log.debug("member snapshot reloaded: {} rows", columns.size());
+            return;
+        }
+
+        if (pendingMembers.isEmpty() && pendingTeams.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> members = new HashMap<>(pendingMembers);
+        Map<Long, Long> teams = new HashMap<>(pendingTeams);
+        Map<Long, MemberTeamDto> rows = new LinkedHashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (List<Long> ids : chunks(new ArrayList<>(members.keySet()))) {
+                fetchRows(member.id.in(ids)).forEach(row -> rows.put(row.getMemberId(), row));
+            }
+            // 팀 이름이 바뀌면 소속 회원 row 를 모두 다시 읽는다
+            for (List<Long> ids : chunks(new ArrayList<>(teams.keySet()))) {
+                fetchRows(team.id.in(ids)).forEach(row -> rows.put(row.getMemberId(), row));
+            }
+        });
+        Set<Long> changedIds = new HashSet<>(members.keySet());
+        changedIds.addAll(rows.keySet());
+        columns = columns.apply(changedIds, rows);
+        members.forEach(pendingMembers::remove);
+        teams.forEach(pendingTeams::remove);
+        log.debug("member snapshot refreshed: {} changed rows", changedIds.size());
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // 다음 주기에 다시 시도한다. 그동안은 stale 이므로 DB 를 조회한다
+            log.warn("member snapshot refresh failed", e);
+        }
+    }
+
+    // dto 나 List 를 만들지 않고 forward-only 커서로 읽는다 (테이블 크기만큼 힙이 튀지 않게)
+    private void loadAll(MemberColumns.Builder builder) {
+        try (Stream<Tuple> stream = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .setHint(QueryHints.FETCH_SIZE, RELOAD_FETCH_SIZE)
+                .setHint(QueryHints.READ_ONLY, true)
+                .stream()) {
+            stream.forEach(row -> builder.add(
+                    row.get(0, Long.class),
+                    row.get(1, String.class),
+                    row.get(2, Integer.class),
+                    row.get(3, Long.class),
+                    row.get(4, String.class)));
+        }
+    }
+
+    private List<MemberTeamDto> fetchRows(Predicate predicate) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicate)
+                .fetch();
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(from + REFRESH_CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
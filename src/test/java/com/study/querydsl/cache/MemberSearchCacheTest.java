@@ -0,0 +1,155 @@
+package com.study.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 캐시는 트랜잭션 밖에서만 사용하므로 데이터를 커밋하고 끝나면 지운다
+@SpringBootTest
+class MemberSearchCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+        nativeCache().invalidateAll();
+    }
+
+    @AfterEach
+    public void after(){
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchRowsSharesSearchCache() throws IOException {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        long hitCount = nativeCache().stats().hitCount();
+
+        // /v1/members 의 DB 조회가 채운 결과를 search 가 그대로 쓰고, 그 반대도 같다
+        List<Long> streamed = new ArrayList<>();
+        memberJpaRepository.searchRows(condition, (memberId, username, age, teamId, teamName) -> streamed.add(memberId));
+        List<MemberTeamDto> searched = memberJpaRepository.search(condition);
+        List<Long> fromCache = new ArrayList<>();
+        memberJpaRepository.searchRows(condition, (memberId, username, age, teamId, teamName) -> fromCache.add(memberId));
+
+        assertEquals(nativeCache().stats().hitCount() - hitCount, 2);
+        assertThat(searched).extracting("memberId").containsExactlyElementsOf(streamed);
+        assertEquals(fromCache, streamed);
+    }
+
+    @Test
+    public void cacheHitTest(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        long hitCount = nativeCache().stats().hitCount();
+
+        List<MemberTeamDto> first = memberJpaRepository.search(condition);
+        List<MemberTeamDto> second = memberJpaRepository.search(condition);
+
+        assertEquals(1, nativeCache().stats().hitCount() - hitCount);
+        // 캐시된 목록과 dto 는 공유되므로 바꿀 수 없다
+        assertThat(second).isSameAs(first);
+        assertThrows(UnsupportedOperationException.class, () -> second.remove(0));
+    }
+
+    @Test
+    public void emptyConditionSharesKeyTest(){
+        MemberSearchCondition empty = new MemberSearchCondition();
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername("");
+        long hitCount = nativeCache().stats().hitCount();
+
+        memberJpaRepository.search(empty);
+        memberJpaRepository.search(blank);
+
+        assertEquals(1, nativeCache().stats().hitCount() - hitCount);
+    }
+
+    @Test
+    public void persistInvalidatesTest(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertEquals(2, memberJpaRepository.search(condition).size());
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = queryFactory.selectFrom(member).where(member.username.eq("member1")).fetchOne().getTeam();
+            em.persist(new Member("member3", 30, teamA));
+        });
+
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3");
+    }
+
+    @Test
+    public void bulkUpdateInvalidatesTest(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        assertEquals(1, memberJpaRepository.search(condition).size());
+
+        tx.executeWithoutResult(status -> queryFactory.update(member).set(member.age, member.age.add(10)).execute());
+
+        assertEquals(2, memberJpaRepository.search(condition).size());
+    }
+
+    @Test
+    public void readWriteTransactionBypassTest(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        long requestCount = nativeCache().stats().requestCount();
+
+        tx.executeWithoutResult(status -> {
+            memberJpaRepository.search(condition);
+            memberJpaRepository.search(condition);
+        });
+
+        assertEquals(requestCount, nativeCache().stats().requestCount());
+    }
+
+    private Cache<Object, Object> nativeCache(){
+        return ((CaffeineCache) cacheManager.getCache(MemberSearchCache.NAME)).getNativeCache();
+    }
+}
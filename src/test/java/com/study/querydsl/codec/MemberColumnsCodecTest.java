@@ -0,0 +1,102 @@
+package com.study.querydsl.codec;
+
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberColumnsCodecTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        List<MemberTeamDto> dtos = new ArrayList<>();
+        dtos.add(new MemberTeamDto(10L, "member1", 10, 1L, "teamA"));
+        // id 가 줄어드는 순서, 음수 나이, null 문자열, 멀티바이트 문자
+        dtos.add(new MemberTeamDto(3L, "회원", -1, 2L, null));
+        dtos.add(new MemberTeamDto(Long.MAX_VALUE, null, Integer.MAX_VALUE, null, null));
+        dtos.add(new MemberTeamDto(11L, "", 0, 1L, "teamA"));
+
+        List<MemberTeamDto> decoded = MemberColumnsCodec.decode(new ByteArrayInputStream(encode(dtos)));
+
+        assertEquals(decoded, dtos);
+    }
+
+    @Test
+    public void empty() throws IOException {
+        assertEquals(MemberColumnsCodec.decode(new ByteArrayInputStream(encode(new ArrayList<>()))).size(), 0);
+    }
+
+    @Test
+    public void notMemberColumns() {
+        byte[] json = "[{\"memberId\":1}]".getBytes();
+        assertThatThrownBy(() -> MemberColumnsCodec.decode(new ByteArrayInputStream(json)))
+                .isInstanceOf(IOException.class);
+    }
+
+    // 헤더의 개수, 길이만 믿고 큰 배열을 만들지 않는다
+    @Test
+    public void countsLargerThanInput() throws IOException {
+        byte[] header = encode(new ArrayList<>());
+
+        // 회원 수 2^31-1, 팀 수 0 인데 본문이 없다
+        byte[] hugeSize = Arrays.copyOf(header, header.length + 4);
+        writeVarInt(hugeSize, 5, Integer.MAX_VALUE);
+        hugeSize[10] = 0;
+        assertThatThrownBy(() -> MemberColumnsCodec.decode(new ByteArrayInputStream(hugeSize)))
+                .isInstanceOf(EOFException.class);
+
+        // 팀 수가 회원 수보다 많다
+        byte[] moreTeams = Arrays.copyOf(header, header.length);
+        moreTeams[6] = 1;
+        assertThatThrownBy(() -> MemberColumnsCodec.decode(new ByteArrayInputStream(moreTeams)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("팀 수");
+
+        // int 로 음수가 되는 회원 수
+        byte[] negative = Arrays.copyOf(header, header.length + 4);
+        writeVarInt(negative, 5, -1);
+        negative[10] = 0;
+        assertThatThrownBy(() -> MemberColumnsCodec.decode(new ByteArrayInputStream(negative)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("잘못된 개수");
+    }
+
+    @Test
+    public void stringLongerThanInput() throws IOException {
+        List<MemberTeamDto> dtos = new ArrayList<>();
+        dtos.add(new MemberTeamDto(1L, "m", 1, null, null));
+        byte[] bytes = encode(dtos);
+        // 마지막 username 은 길이 varint(2) + "m". 길이를 2^28 으로 바꾸고 본문은 자른다
+        byte[] corrupted = Arrays.copyOf(bytes, bytes.length + 3);
+        writeVarInt(corrupted, bytes.length - 2, (1 << 28) + 1);
+
+        assertThatThrownBy(() -> MemberColumnsCodec.decode(new ByteArrayInputStream(corrupted)))
+                .isInstanceOf(EOFException.class);
+    }
+
+    private static byte[] encode(List<MemberTeamDto> dtos) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnsCodec.encode(MemberTeamRows.of(dtos), out);
+        return out.toByteArray();
+    }
+
+    // 5 바이트 varint 로 쓴다
+    private static void writeVarInt(byte[] bytes, int offset, int value) {
+        long v = value & 0xFFFFFFFFL;
+        for (int i = 0; i < 4; i++) {
+            bytes[offset + i] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        bytes[offset + 4] = (byte) v;
+    }
+}
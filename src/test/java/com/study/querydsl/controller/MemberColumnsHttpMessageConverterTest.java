@@ -0,0 +1,69 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.codec.MemberColumnsCodec;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberColumnsHttpMessageConverterTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("noTeam", 50));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void contentNegotiation() throws Exception {
+        byte[] body = mockMvc.perform(get("/v1/members").accept(MemberColumnsCodec.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberColumnsCodec.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+        String json = mockMvc.perform(get("/v1/members"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<MemberTeamDto> decoded = MemberColumnsCodec.decode(new ByteArrayInputStream(body));
+        assertThat(decoded).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(new MemberSearchCondition()));
+        // 팀 이름은 사전에 한번씩만 들어간다
+        assertThat(body.length).isLessThan(json.length() / 2);
+    }
+}
@@ -0,0 +1,97 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void cursorPage() throws Exception {
+        mockMvc.perform(get("/v4/members").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+    }
+
+    @Test
+    public void cursorNotBase64() throws Exception {
+        mockMvc.perform(get("/v4/members").param("cursor", "!!!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void cursorNotNumber() throws Exception {
+        String cursor = Base64.getUrlEncoder().encodeToString("ten:1".getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(get("/v4/members").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void cursorWrongShape() throws Exception {
+        String cursor = Base64.getUrlEncoder().encodeToString("10".getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(get("/v4/members").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void cursorSizeZero() throws Exception {
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void windowPageSort() throws Exception {
+        mockMvc.perform(get("/v5/members").param("sort", "age,desc").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("member3"))
+                .andExpect(jsonPath("$.totalElements").value(3));
+    }
+
+    @Test
+    public void windowPageUnknownSort() throws Exception {
+        mockMvc.perform(get("/v5/members").param("sort", "team.name"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void windowPageOffsetOverflow() throws Exception {
+        mockMvc.perform(get("/v5/members").param("page", String.valueOf(Integer.MAX_VALUE)).param("size", "100"))
+                .andExpect(status().isBadRequest());
+    }
+}
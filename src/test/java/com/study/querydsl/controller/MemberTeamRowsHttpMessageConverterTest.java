@@ -0,0 +1,129 @@
+package com.study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.MemberTeamRows;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberTeamRowsHttpMessageConverterTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberTeamRowsHttpMessageConverter converter;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        // 팀이 없는 회원은 teamId, teamName 이 null 로 나온다
+        em.persist(new Member("member4", 40));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void sameJsonAsObjectMapper() throws Exception {
+        List<MemberTeamDto> dtos = new ArrayList<>();
+        dtos.add(new MemberTeamDto(1L, "member1", 10, 2L, "teamA"));
+        dtos.add(new MemberTeamDto(3L, "\"quoted\" 회원", 20, null, null));
+        dtos.add(new MemberTeamDto(4L, null, 0, null, null));
+
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(MemberTeamRows.of(dtos), MediaType.APPLICATION_JSON, message);
+
+        assertEquals(message.getBodyAsString(), objectMapper.writeValueAsString(dtos));
+    }
+
+    @Test
+    public void searchMemberV1() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+
+        String body = mockMvc.perform(get("/v1/members").param("ageGoe", "15"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // 순서는 다를 수 있으므로 row 단위로 비교한다
+        JsonNode actual = objectMapper.readTree(body);
+        JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsString(memberJpaRepository.search(condition)));
+        assertEquals(actual.size(), 3);
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void emptyResult() throws Exception {
+        mockMvc.perform(get("/v1/members").param("username", "nobody"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]", true));
+    }
+
+    @Test
+    public void failureInFirstChunkWritesNothing() throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        MemberTeamRows rows = handler -> {
+            handler.row(1L, "member1", 10, null, null);
+            throw new IllegalStateException("db down");
+        };
+
+        assertThrows(IllegalStateException.class, () -> converter.write(rows, MediaType.APPLICATION_JSON, message));
+        // 응답에 아무것도 쓰지 않았으므로 에러 응답으로 바꿀 수 있다
+        assertEquals(message.getBodyAsBytes().length, 0);
+    }
+
+    @Test
+    public void failureAfterFirstChunkIsNotValidJson() throws Exception {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        MemberTeamRows rows = handler -> {
+            for (long id = 1; id <= FirstChunkOutputStream.FIRST_CHUNK_BYTES; id++) {
+                handler.row(id, "member" + id, 10, 1L, "teamA");
+            }
+            throw new IllegalStateException("db down");
+        };
+
+        assertThrows(IllegalStateException.class, () -> converter.write(rows, MediaType.APPLICATION_JSON, message));
+        String body = message.getBodyAsString();
+        assertTrue(body.startsWith("[{"));
+        assertTrue(body.endsWith(MemberTeamRowsHttpMessageConverter.ERROR_MARKER));
+        assertThrows(IOException.class, () -> objectMapper.readTree(body));
+    }
+}
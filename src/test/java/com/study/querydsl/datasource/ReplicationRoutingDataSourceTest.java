@@ -0,0 +1,77 @@
+package com.study.querydsl.datasource;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// primary 와 replica 를 서로 다른 H2 메모리 DB 로 띄운다. 스키마는 primary 에만 만들어진다
+@SpringBootTest(properties = {
+        "querydsl.datasource.routing.enabled=true",
+        "querydsl.datasource.primary.jdbc-url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "querydsl.datasource.primary.username=sa",
+        "querydsl.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "querydsl.datasource.replica.username=sa"
+})
+class ReplicationRoutingDataSourceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void readOnlyTransactionUsesReplica(){
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String url = readOnly.execute(status -> connectionUrl());
+        assertThat(url).contains("replica");
+    }
+
+    @Test
+    public void readWriteTransactionUsesPrimary(){
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        String url = readWrite.execute(status -> connectionUrl());
+        assertThat(url).contains("primary");
+    }
+
+    @Test
+    public void readOnlyInsideReadWriteUsesPrimary(){
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // 바깥 트랜잭션에 참여한다
+        String url = readWrite.execute(status -> readOnly.execute(inner -> connectionUrl()));
+        assertThat(url).contains("primary");
+    }
+
+    @Test
+    public void repositorySearchGoesToReplica(){
+        // replica 에는 테이블이 없으므로 replica 로 갔다면 실패한다
+        assertThatThrownBy(() -> memberRepository.searchPageSimple(new MemberSearchCondition(), PageRequest.of(0, 10)))
+                .isInstanceOf(DataAccessException.class)
+                .hasRootCauseInstanceOf(SQLException.class)
+                .getRootCause().hasMessageContaining("MEMBER");
+    }
+
+    private String connectionUrl(){
+        return em.unwrap(Session.class).doReturningWork(connection -> connection.getMetaData().getURL());
+    }
+}
@@ -0,0 +1,106 @@
+package com.study.querydsl.entity;
+
+import com.github.benmanes.caffeine.jcache.CacheProxy;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 2차 캐시는 커밋 이후에 채워지므로 트랜잭션을 나눠서 실행하고 끝나면 지운다
+@SpringBootTest
+class TeamSecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long memberId;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        memberId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            return member1.getId();
+        });
+        emf.getCache().evictAll();
+    }
+
+    @AfterEach
+    public void after(){
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void lazyTeamLoadHitsCacheTest(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Team.CACHE_REGION);
+
+        // 처음 한번은 DB 에서 읽어서 캐시에 넣는다
+        assertEquals(teamNameOfMember(), "teamA");
+        long putCount = region.getPutCount();
+        assertTrue(putCount > 0);
+
+        long hitCount = region.getHitCount();
+        for(int i=0;i<3;i++){
+            long statementCount = statistics.getPrepareStatementCount();
+            assertEquals(teamNameOfMember(), "teamA");
+            // member 조회 한번만 실행되고 team 은 캐시에서 읽는다
+            assertEquals(statistics.getPrepareStatementCount() - statementCount, 1);
+        }
+        assertEquals(region.getHitCount() - hitCount, 3);
+        assertEquals(region.getPutCount(), putCount);
+    }
+
+    @Test
+    public void updateRefreshesCacheTest(){
+        teamNameOfMember();
+
+        tx.executeWithoutResult(status -> em.find(Member.class, memberId).getTeam().setName("teamB"));
+
+        assertEquals(teamNameOfMember(), "teamB");
+    }
+
+    // region 이 application.conf 설정으로 만들어졌는지 (설정을 못 찾으면 컨텍스트가 뜨지 않는다)
+    @Test
+    public void regionConfiguredExternallyTest(){
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        Cache<Object, Object> cache = cacheManager.getCache(Team.CACHE_REGION);
+
+        assertNotNull(cache);
+        CaffeineConfiguration<?, ?> configuration = cache.unwrap(CacheProxy.class).getConfiguration();
+        assertEquals(configuration.getMaximumSize().getAsLong(), 1000L);
+    }
+
+    private String teamNameOfMember(){
+        return tx.execute(status -> em.find(Member.class, memberId).getTeam().getName());
+    }
+}
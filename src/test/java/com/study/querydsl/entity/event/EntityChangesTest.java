@@ -0,0 +1,74 @@
+package com.study.querydsl.entity.event;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 이벤트는 트랜잭션이 끝난 뒤 발행되므로 데이터를 커밋하고 끝나면 지운다
+@SpringBootTest
+@RecordApplicationEvents
+class EntityChangesTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ApplicationEvents events;
+
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void oneEventPerTransaction(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for(int i=0;i<20;i++){
+                em.persist(new Member("member"+i, i, teamA));
+            }
+            em.flush();
+            em.find(Member.class, teamA.getMembers().get(0).getId()).setAge(100);
+        });
+
+        List<EntityChangedEvent> changed = events.stream(EntityChangedEvent.class).collect(Collectors.toList());
+        assertEquals(1, changed.size());
+        EntityChangedEvent event = changed.get(0);
+        assertTrue(event.isCommitted());
+        assertFalse(event.isBulk(Member.class));
+        assertEquals(20, event.ids(Member.class).size());
+        assertEquals(1, event.ids(Team.class).size());
+    }
+
+    @Test
+    public void rolledBack(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(new Member("member1", 10));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        List<EntityChangedEvent> changed = events.stream(EntityChangedEvent.class).collect(Collectors.toList());
+        assertEquals(1, changed.size());
+        assertFalse(changed.get(0).isCommitted());
+        assertTrue(changed.get(0).concerns(Member.class));
+    }
+}
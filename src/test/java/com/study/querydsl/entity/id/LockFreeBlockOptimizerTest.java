@@ -0,0 +1,77 @@
+package com.study.querydsl.entity.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockFreeBlockOptimizerTest {
+
+    private static final int BLOCK_SIZE = 50;
+
+    // start with 1 increment by 50 시퀀스
+    static class FakeSequence implements AccessCallback {
+        final AtomicLong value = new AtomicLong(1);
+        final AtomicLong calls = new AtomicLong();
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            calls.incrementAndGet();
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+                    .initialize(value.getAndAdd(BLOCK_SIZE));
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+
+    @Test
+    public void allocateWithinBlock(){
+        LockFreeBlockOptimizer optimizer = new LockFreeBlockOptimizer(Long.class, BLOCK_SIZE);
+        FakeSequence sequence = new FakeSequence();
+
+        for(long expected=1;expected<=120;expected++){
+            assertEquals(expected, optimizer.generate(sequence));
+        }
+        // 1~50, 51~100, 101~150 세 구간
+        assertEquals(sequence.calls.get(), 3);
+    }
+
+    @Test
+    public void concurrentAllocationIsUnique() throws InterruptedException {
+        LockFreeBlockOptimizer optimizer = new LockFreeBlockOptimizer(Long.class, BLOCK_SIZE);
+        FakeSequence sequence = new FakeSequence();
+        Set<Object> ids = ConcurrentHashMap.newKeySet();
+
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for(int t=0;t<threads;t++){
+            executor.submit(() -> {
+                start.await();
+                for(int i=0;i<perThread;i++){
+                    ids.add(optimizer.generate(sequence));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(ids.size(), threads * perThread);
+    }
+}
@@ -0,0 +1,50 @@
+package com.study.querydsl.instrument;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.repository.MemberJpaRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// caller tag 는 기본으로 꺼져 있다
+@SpringBootTest(properties = "querydsl.metrics.caller-tag=true")
+@Transactional
+class InstrumentedJPAQueryFactoryTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MeterRegistry registry;
+    @Autowired
+    QuerydslMetrics querydslMetrics;
+
+    @Test
+    public void recordFetch(){
+        memberJpaRepository.save(new Member("member1", 10));
+        memberJpaRepository.save(new Member("member1", 20));
+
+        memberJpaRepository.findByUsername("member1");
+
+        Timer timer = registry.find("querydsl.query")
+                .tag("operation", "fetch")
+                .tag("caller", "MemberJpaRepository.findByUsername")
+                .timer();
+        assertNotNull(timer);
+        assertTrue(timer.count() >= 1);
+
+        DistributionSummary rows = registry.find("querydsl.query.rows")
+                .tag("caller", "MemberJpaRepository.findByUsername")
+                .summary();
+        assertNotNull(rows);
+        assertEquals(2, rows.max());
+
+        String shape = timer.getId().getTag("shape");
+        assertTrue(querydslMetrics.shapes().get(shape).contains(".username = ?1"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.study.querydsl.instrument;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Spring context 없이 SimpleMeterRegistry 로 tag 를 확인한다
+class QuerydslMetricsTest {
+
+    @Test
+    public void shapesBoundedWithOther(){
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QuerydslMetrics metrics = new QuerydslMetrics(registry, 2, false, false, new long[0]);
+
+        metrics.record("fetch", "select m from Member m", 1_000, 1, true);
+        metrics.record("fetch", "select t from Team t", 1_000, 1, true);
+        metrics.record("fetch", "select m from Member m where m.age > ?1", 1_000, 1, true);
+        metrics.record("fetch", "select m from Member m where m.age < ?1", 1_000, 1, true);
+        // 이미 기억한 shape 는 계속 자기 shape 로 기록
+        metrics.record("fetch", "select m from Member m", 1_000, 1, true);
+
+        assertEquals(2, metrics.shapes().size());
+        assertEquals(3, registry.find(QuerydslMetrics.TIMER).timers().size());
+        Timer other = registry.find(QuerydslMetrics.TIMER).tag("shape", QuerydslMetrics.OTHER_SHAPE).timer();
+        assertNotNull(other);
+        assertEquals(2, other.count());
+    }
+
+    @Test
+    public void callerTagOptIn(){
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new QuerydslMetrics(registry, 10, false, false, new long[0]).record("fetch", "select m from Member m", 1_000, 1, true);
+        assertNull(registry.find(QuerydslMetrics.TIMER).timer().getId().getTag("caller"));
+
+        SimpleMeterRegistry callerRegistry = new SimpleMeterRegistry();
+        new QuerydslMetrics(callerRegistry, 10, true, false, new long[0]).record("fetch", "select m from Member m", 1_000, 1, true);
+        assertNotNull(callerRegistry.find(QuerydslMetrics.TIMER).timer().getId().getTag("caller"));
+    }
+
+    @Test
+    public void sloBuckets(){
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QuerydslMetrics metrics = new QuerydslMetrics(registry, 10, false, false, new long[]{10, 100});
+        metrics.record("fetch", "select m from Member m", TimeUnit.MILLISECONDS.toNanos(5), 1, true);
+        metrics.record("fetch", "select m from Member m", TimeUnit.MILLISECONDS.toNanos(50), 1, true);
+
+        CountAtBucket[] buckets = registry.find(QuerydslMetrics.TIMER).timer().takeSnapshot().histogramCounts();
+        assertEquals(buckets.length, 2);
+        assertEquals(buckets[0].count(), 1.0);
+        assertEquals(buckets[1].count(), 2.0);
+    }
+
+    @Test
+    public void shapeIdIsDigest(){
+        String id = QuerydslMetrics.shapeId("select m from Member m");
+        assertEquals(id.length(), 16);
+        assertEquals(QuerydslMetrics.shapeId("select m from Member m"), id);
+        // String.hashCode 가 같은 두 문자열
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(QuerydslMetrics.shapeId("Aa"), QuerydslMetrics.shapeId("BB"));
+    }
+}
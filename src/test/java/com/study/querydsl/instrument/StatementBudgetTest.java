@@ -0,0 +1,98 @@
+package com.study.querydsl.instrument;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 테스트 설정(config/application.yml)에서 모든 요청을 기록하고 예산을 넘으면 실패한다
+@SpringBootTest(properties = "querydsl.statement-budget.max-statements=2")
+@AutoConfigureMockMvc
+@Transactional
+class StatementBudgetTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    StatementBudget statementBudget;
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void withinBudget() throws Exception {
+        // content 조회 + count 조회
+        mockMvc.perform(get("/v3/members").param("page", "0").param("size", "1"))
+                .andExpect(status().isOk());
+
+        // 요청이 끝나면 기록도 끝난다
+        assertEquals(statementBudget.finish(), -1);
+    }
+
+    @Test
+    public void lazyLoadingExceedsBudget(){
+        statementBudget.start("test");
+        try {
+            List<Member> members = queryFactory.selectFrom(member).fetch();
+
+            // member 조회 1번 + team 지연 로딩 2번
+            assertThatThrownBy(() -> members.forEach(m -> m.getTeam().getName()))
+                    .isInstanceOf(StatementBudgetExceededException.class)
+                    .hasMessageContaining("test executed 3 statements (budget 2)")
+                    .hasMessageContaining("2x select");
+        } finally {
+            statementBudget.finish();
+        }
+    }
+
+    @Test
+    public void notSampled(){
+        StatementBudget budget = new StatementBudget(new SimpleMeterRegistry(), 0, 0.0, true);
+
+        assertFalse(budget.start("test"));
+        assertEquals(budget.inspect("select 1"), "select 1");
+        assertEquals(budget.finish(), -1);
+    }
+
+    @Test
+    public void inListCountedAsOnePattern(){
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StatementBudget budget = new StatementBudget(registry, 1, 1.0, false);
+
+        assertTrue(budget.start("test"));
+        budget.inspect("select * from member where member_id in (?, ?)");
+        budget.inspect("select * from member where member_id in (?, ?, ?)");
+
+        assertEquals(budget.finish(), 2);
+        assertEquals(registry.counter(StatementBudget.EXCEEDED, "handler", "test").count(), 1);
+    }
+}
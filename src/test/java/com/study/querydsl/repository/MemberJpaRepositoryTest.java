@@ -11,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -64,6 +65,35 @@ class MemberJpaRepositoryTest {
 
     }
 
+    // 16가지 조건 모양 모두 BooleanBuilder 로 만든 쿼리와 결과가 같아야 한다
+    @Test
+    public void searchAllShapesTest(){
+        conditionSetting();
+        em.persist(new Member("noTeam", 35));
+
+        for(int shape=0;shape<16;shape++){
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if((shape & 1) != 0) condition.setUsername("member4");
+            if((shape & 2) != 0) condition.setTeamName("teamB");
+            if((shape & 4) != 0) condition.setAgeGoe(25);
+            if((shape & 8) != 0) condition.setAgeLoe(40);
+
+            assertEquals(memberJpaRepository.searchByBuilder(condition), memberJpaRepository.search(condition));
+            // 두번째 호출은 캐시된 JPQL 사용
+            assertEquals(memberJpaRepository.searchByBuilder(condition), memberJpaRepository.search(condition));
+        }
+    }
+
+    @Test
+    public void searchStreamTest(){
+        MemberSearchCondition condition = conditionSetting();
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.searchStream(condition, result::add);
+        assertEquals(result.size(),1);
+        assertEquals(result.get(0).getUsername(),"member4");
+    }
+
     private MemberSearchCondition conditionSetting() {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -0,0 +1,64 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 동시 실행되는 쿼리는 별도 트랜잭션이므로 데이터를 커밋하고 끝나면 지운다
+@SpringBootTest(properties = "querydsl.paging.concurrent-count=true")
+class MemberRepositoryConcurrentCountTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void before(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for(int i=0;i<10;i++){
+                em.persist(new Member("member"+i, i*10, i%2==0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchPageComplexConcurrent(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+
+        assertEquals(5, result.getTotalElements());
+        assertThat(result.getContent()).extracting("username").containsExactly("member4","member6");
+    }
+}
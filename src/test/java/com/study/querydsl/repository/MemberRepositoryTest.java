@@ -1,15 +1,20 @@
 package com.study.querydsl.repository;
 
+import com.querydsl.core.Tuple;
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.entity.Member;
 import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.support.InvalidSearchRequestException;
 import com.study.querydsl.repository.support.MemberQuerydslSupportRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -93,6 +98,107 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1","member2","member3");
     }
     @Test
+    public void searchPageWindow(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for(int i=0;i<10;i++){
+            em.persist(new Member("member"+i, i*10, i%2==0 ? teamA : teamB));
+        }
+        em.persist(new Member("noTeam", 50));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageWindow(condition, PageRequest.of(1, 3));
+        assertEquals(9, result.getTotalElements());
+        assertThat(result.getContent()).extracting("username").containsExactly("member5","member6","member7");
+
+        Page<MemberTeamDto> beyond = memberRepository.searchPageWindow(condition, PageRequest.of(5, 3));
+        assertEquals(9, beyond.getTotalElements());
+        assertTrue(beyond.getContent().isEmpty());
+
+        Page<MemberTeamDto> byAge = memberRepository.searchPageWindow(condition, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+        assertThat(byAge.getContent()).extracting("username").containsExactly("member9","member8","member7");
+
+        Page<MemberTeamDto> byTeam = memberRepository.searchPageWindow(condition, PageRequest.of(0, 2, Sort.by("teamName").descending().and(Sort.by("age"))));
+        assertEquals(9, byTeam.getTotalElements());
+        assertThat(byTeam.getContent()).extracting("username").containsExactly("member3","member5");
+
+        // 정렬할 수 없는 속성은 400 으로 응답하도록 예외 변환을 거치지 않는다
+        assertThrows(InvalidSearchRequestException.class,
+                () -> memberRepository.searchPageWindow(condition, PageRequest.of(0, 3, Sort.by("team.name"))));
+    }
+    @Test
+    public void searchPageDeferred(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for(int i=0;i<10;i++){
+            em.persist(new Member("member"+i, i*10, i%2==0 ? teamA : teamB));
+        }
+        em.persist(new Member("noTeam", 50));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageDeferred(condition, PageRequest.of(1, 3));
+        assertEquals(9, result.getTotalElements());
+        assertThat(result.getContent()).extracting("username").containsExactly("member5","member6","member7");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB","teamA","teamB");
+
+        condition.setTeamName("teamA");
+        Page<MemberTeamDto> teamA2 = memberRepository.searchPageDeferred(condition, PageRequest.of(1, 2));
+        assertEquals(teamA2.getTotalElements(),4);
+        assertThat(teamA2.getContent()).extracting("username").containsExactly("member6","member8");
+    }
+    @Test
+    public void searchSlice(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for(int i=0;i<5;i++){
+            em.persist(new Member("member"+i, i*10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2));
+        assertThat(first.getContent()).extracting("username").containsExactly("member0","member1");
+        assertTrue(first.hasNext());
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(2, 2));
+        assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        assertFalse(last.hasNext());
+
+        // 마지막 페이지가 꽉 차도 다음 페이지는 없다
+        Slice<MemberTeamDto> exact = memberRepository.searchSlice(condition, PageRequest.of(0, 5));
+        assertEquals(exact.getNumberOfElements(),5);
+        assertFalse(exact.hasNext());
+    }
+    @Test
+    public void searchByCursor(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1",10,teamA));
+        em.persist(new Member("member2",20,teamA));
+        em.persist(new Member("member3",20,teamA));
+        em.persist(new Member("member4",40,teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberCursorPage first = memberRepository.searchByCursor(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1","member2");
+        assertNotNull(first.getNextCursor());
+
+        MemberCursorPage second = memberRepository.searchByCursor(condition, first.getNextCursor(), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("member3","member4");
+        assertNull(second.getNextCursor());
+    }
+    @Test
     public void querydslPredicateExecutorTest(){
         Member member1 = new Member("member1",10);
         Member member2 = new Member("member2",20);
@@ -105,6 +211,79 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void querydsl4SupportCountTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for(int i=0;i<10;i++){
+            em.persist(new Member("member"+i, i*10, i%2==0 ? teamA : teamB));
+        }
+
+        MemberTestRepository query = new MemberTestRepository(Member.class);
+        query.setEntityManager(em);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        Page<Member> result = query.searchPageByApplyPagination(condition, PageRequest.of(0, 3));
+        assertEquals(7, result.getTotalElements());
+        assertThat(result.getContent()).extracting("username").containsExactly("member3","member4","member5");
+
+        condition.setTeamName("teamA");
+        Page<Member> teamResult = query.searchPageByApplyPagination(condition, PageRequest.of(0, 3));
+        assertEquals(3, teamResult.getTotalElements());
+    }
+
+    @Test
+    public void querydsl4SupportGroupByCountTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for(int i=0;i<10;i++){
+            em.persist(new Member("member"+i, i*10, i%2==0 ? teamA : teamB));
+        }
+        em.persist(new Member("memberNoTeam", 10));
+
+        MemberTestRepository query = new MemberTestRepository(Member.class);
+        query.setEntityManager(em);
+
+        // teamA, teamB, null 그룹
+        Page<String> result = query.teamNamePage(PageRequest.of(0, 1));
+        assertEquals(3, result.getTotalElements());
+
+        Page<String> having = query.teamNamePageHavingMembers(2, PageRequest.of(0, 1));
+        assertEquals(2, having.getTotalElements());
+    }
+
+    @Test
+    public void querydsl4SupportMultiKeyCountTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for(int i=0;i<10;i++){
+            em.persist(new Member("member"+i, i*10, i%2==0 ? teamA : teamB));
+        }
+        // (teamA, 0), (null, 10) 은 같은 그룹
+        em.persist(new Member("memberDup", 0, teamA));
+        em.persist(new Member("memberNoTeam1", 10));
+        em.persist(new Member("memberNoTeam2", 10));
+
+        MemberTestRepository query = new MemberTestRepository(Member.class);
+        query.setEntityManager(em);
+
+        Page<Tuple> grouped = query.teamNameAgePage(PageRequest.of(0, 2));
+        assertEquals(grouped.getTotalElements(), 11);
+
+        Page<String> distinctTeam = query.distinctTeamNamePage(PageRequest.of(0, 1));
+        assertEquals(distinctTeam.getTotalElements(), 3);
+
+        Page<Tuple> distinctTeamAge = query.distinctTeamNameAgePage(PageRequest.of(0, 2));
+        assertEquals(distinctTeamAge.getTotalElements(), 11);
+    }
+
     @Test
     public void querydslSupportTest(){
         Member member1 = new Member("member1",10);
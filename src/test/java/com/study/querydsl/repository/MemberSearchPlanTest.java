@@ -0,0 +1,135 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberCursor;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 검색 조건 모양별 H2 실행 계획 확인
+ *
+ * 인덱스를 타지 않고 member 전체를 읽으면 EXPLAIN 결과에 tableScan 이 나온다.
+ * 조건이 없는 경우와 teamName 만 있는 경우는 제외한다.
+ * (leftJoin 이라 team 쪽에서 시작할 수 없어 member 를 모두 읽는다)
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchPlanTest {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for(int i=0;i<100;i++){
+            em.persist(new Member("member"+i, i, i%2==0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchShapesUseIndex(){
+        for(int shape=0;shape<16;shape++){
+            if(shape == 0 || shape == TEAM_NAME){
+                continue;
+            }
+            MemberSearchCondition condition = conditionOf(shape);
+
+            String plan = explain(searchQuery(MemberSearchPredicates.of(condition)));
+
+            assertThat(plan).as("%s%n%s", condition, plan).doesNotContain("tableScan");
+        }
+    }
+
+    @Test
+    public void cursorUsesAgeIdIndex(){
+        MemberCursor cursor = MemberCursor.of(new MemberTeamDto(10L, "member10", 10, null, null));
+
+        String plan = explain(searchQuery(MemberSearchPredicates.afterCursor(cursor))
+                .orderBy(member.age.asc(), member.id.asc()));
+
+        assertThat(plan).as(plan).doesNotContain("tableScan").containsIgnoringCase("idx_member_age_id");
+    }
+
+    // MemberJpaRepository.search, MemberRepositoryCustomImpl 검색과 같은 from, join
+    private JPAQuery<MemberTeamDto> searchQuery(Predicate predicate){
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicate);
+    }
+
+    private MemberSearchCondition conditionOf(int shape){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if((shape & USERNAME) != 0){
+            condition.setUsername("member10");
+        }
+        if((shape & TEAM_NAME) != 0){
+            condition.setTeamName("teamA");
+        }
+        if((shape & AGE_GOE) != 0){
+            condition.setAgeGoe(90);
+        }
+        if((shape & AGE_LOE) != 0){
+            condition.setAgeLoe(95);
+        }
+        return condition;
+    }
+
+    // JPQL -> SQL 로 바꿔서 같은 파라미터로 EXPLAIN 실행 (쿼리 플랜 캐시를 거치지 않고 HQLQueryPlan 으로 직접 번역)
+    private String explain(JPAQuery<?> query){
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT, em);
+        serializer.serialize(query.getMetadata(), false, null);
+        String jpql = serializer.toString();
+
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        String sql = new HQLQueryPlan(jpql, false, Collections.emptyMap(), sessionFactory)
+                .getTranslators()[0]
+                .getSQLString();
+
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                serializer.getConstants().toArray());
+    }
+}
@@ -0,0 +1,67 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.TeamWithMembersDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.instrument.StatementBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+    @Autowired
+    StatementBudget statementBudget;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void findTeamsWithMembers(){
+        statementBudget.start("test");
+        Page<TeamWithMembersDto> result = teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+        // 팀 페이지 + 회원 in 쿼리 + count
+        assertEquals(3, statementBudget.finish());
+
+        assertEquals(3, result.getTotalElements());
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(result.getContent().get(0).getMembers()).extracting("username").containsExactly("member1", "member2");
+        assertThat(result.getContent().get(1).getMembers()).extracting("username").containsExactly("member3");
+    }
+
+    @Test
+    public void teamWithoutMembers(){
+        Page<TeamWithMembersDto> result = teamQueryRepository.findTeamsWithMembers(PageRequest.of(1, 2));
+
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamC");
+        assertThat(result.getContent().get(0).getMembers()).isEmpty();
+    }
+
+}
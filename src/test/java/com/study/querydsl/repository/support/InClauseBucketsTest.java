@@ -0,0 +1,29 @@
+package com.study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InClauseBucketsTest {
+
+    @Test
+    public void padding(){
+        InClauseBuckets buckets = new InClauseBuckets(4, 2);
+
+        List<List<Integer>> chunks = buckets.partition(Arrays.asList(1, 2, 3, 4, 5));
+
+        assertEquals(2, chunks.size());
+        assertEquals(Arrays.asList(1, 2, 3, 4), chunks.get(0));
+        // 마지막 값을 반복해서 bucket 크기를 맞춘다
+        assertEquals(Arrays.asList(5, 5), chunks.get(1));
+    }
+
+    @Test
+    public void invalidSizes(){
+        assertThrows(IllegalArgumentException.class, () -> new InClauseBuckets(4, 0));
+    }
+}
@@ -0,0 +1,57 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.datasource.ReplicationRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 작업 스레드 수가 커넥션 풀 크기에 맞춰 제한되는지 확인 (풀은 열지 않는다)
+class ParallelQueryExecutorTest {
+
+    @Test
+    public void threadsBoundedByHikariPool(){
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(10);
+
+        assertEquals(2, ParallelQueryExecutor.threadsFor(dataSource, 4));
+        assertEquals(1, ParallelQueryExecutor.threadsFor(dataSource, 1));
+
+        dataSource.setMaximumPoolSize(2);
+        assertEquals(1, ParallelQueryExecutor.threadsFor(dataSource, 4));
+    }
+
+    @Test
+    public void threadsOfOtherDataSource(){
+        assertEquals(4, ParallelQueryExecutor.threadsFor(new DriverManagerDataSource(), 4));
+        assertThatThrownBy(() -> ParallelQueryExecutor.threadsFor(new DriverManagerDataSource(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void threadsBoundedBySmallestRoutedPool(){
+        HikariDataSource primary = new HikariDataSource();
+        primary.setMaximumPoolSize(20);
+        HikariDataSource replica = new HikariDataSource();
+        replica.setMaximumPoolSize(8);
+
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReplicationRoutingDataSource.Route.PRIMARY, primary,
+                ReplicationRoutingDataSource.Route.REPLICA, replica));
+        routing.afterPropertiesSet();
+        // 생성자는 커넥션을 얻어보므로 setter 로 감싼다
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(routing);
+
+        assertEquals(ParallelQueryExecutor.threadsFor(proxy, 4), 2);
+
+        replica.setMaximumPoolSize(2);
+        assertEquals(ParallelQueryExecutor.threadsFor(proxy, 4), 1);
+    }
+}
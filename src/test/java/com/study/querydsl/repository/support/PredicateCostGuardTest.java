@@ -0,0 +1,153 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAExpressions;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"querydsl.predicate.max-depth=3", "querydsl.predicate.max-in-size=5",
+        "querydsl.predicate.max-offset=2"})
+@AutoConfigureMockMvc
+@Transactional
+class PredicateCostGuardTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    PredicateCostGuard predicateCostGuard;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("other4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void boundPredicate() throws Exception {
+        // username 은 앞부분 일치, age 두 값은 between
+        mockMvc.perform(get("/members/predicate")
+                        .param("username", "member")
+                        .param("age", "15", "40")
+                        .param("team.name", "teamB"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].username").value("member3"))
+                .andExpect(jsonPath("$.content[0].teamName").value("teamB"));
+    }
+
+    @Test
+    public void unlistedPropertyIgnored() throws Exception {
+        // id 는 바인딩하지 않으므로 조건 없이 전체가 조회된다
+        mockMvc.perform(get("/members/predicate").param("id", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.last").value(false));
+    }
+
+    @Test
+    public void deepPage() throws Exception {
+        mockMvc.perform(get("/members/predicate").param("page", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2));
+        mockMvc.perform(get("/members/predicate").param("page", "3").param("size", "1"))
+                .andExpect(status().isBadRequest());
+
+        assertThatThrownBy(() -> predicateCostGuard.checkOffset(3))
+                .isInstanceOf(PredicateTooExpensiveException.class)
+                .extracting("reason").isEqualTo(PredicateCostGuard.Reason.DEEP_PAGE);
+    }
+
+    @Test
+    public void allowed() {
+        predicateCostGuard.check(null);
+        predicateCostGuard.check(member.username.startsWith("mem").and(member.age.between(10, 20)));
+        predicateCostGuard.check(member.age.goe(10).and(member.age.loe(20)));
+        predicateCostGuard.check(member.username.like("mem%"));
+        predicateCostGuard.check(member.id.in(1L, 2L, 3L));
+    }
+
+    @Test
+    public void leadingWildcard() {
+        assertRejected(member.username.like("%ber1"), PredicateCostGuard.Reason.LEADING_WILDCARD);
+        assertRejected(member.username.like("_ember1"), PredicateCostGuard.Reason.LEADING_WILDCARD);
+        assertRejected(member.username.startsWith(""), PredicateCostGuard.Reason.LEADING_WILDCARD);
+        assertRejected(member.username.contains("ber"), PredicateCostGuard.Reason.NOT_INDEXABLE);
+        assertRejected(member.username.endsWith("1"), PredicateCostGuard.Reason.NOT_INDEXABLE);
+        assertRejected(member.username.startsWithIgnoreCase("MEM"), PredicateCostGuard.Reason.NOT_INDEXABLE);
+    }
+
+    @Test
+    public void unboundedRange() {
+        assertRejected(member.age.goe(10), PredicateCostGuard.Reason.UNBOUNDED_RANGE);
+        assertRejected(member.age.lt(10).and(member.username.eq("member1")), PredicateCostGuard.Reason.UNBOUNDED_RANGE);
+        // or 의 각 갈래는 따로 막혀 있어야 한다
+        assertRejected(member.age.goe(10).and(member.age.loe(20).or(member.username.eq("member1"))),
+                PredicateCostGuard.Reason.UNBOUNDED_RANGE);
+    }
+
+    @Test
+    public void depth() {
+        // 비교 하나가 1 단계. a and b and c and d 는 2 단계, a or (b and (c or not d)) 는 5 단계
+        predicateCostGuard.check(member.age.eq(1).and(member.age.eq(2)).and(member.age.eq(3)).and(member.age.eq(4)));
+        Predicate deep = member.age.eq(1).or(member.age.eq(2).and(member.age.eq(3).or(member.age.eq(4).not())));
+
+        assertRejected(deep, PredicateCostGuard.Reason.DEPTH);
+    }
+
+    @Test
+    public void inSize() {
+        assertRejected(member.id.in(LongStream.rangeClosed(1, 6).boxed().collect(Collectors.toList())),
+                PredicateCostGuard.Reason.IN_SIZE);
+    }
+
+    @Test
+    public void shape() {
+        // 값만 다른 조건은 같은 모양 (검사 결과를 재사용한다)
+        assertEquals(PredicateCostGuard.shapeOf(member.username.like("%b")), PredicateCostGuard.shapeOf(member.username.like("a%")));
+        assertNotEquals(PredicateCostGuard.shapeOf(member.age.goe(1)), PredicateCostGuard.shapeOf(member.age.loe(1)));
+
+        // 모양 검사는 통과해도 값 검사는 매번 한다
+        predicateCostGuard.check(member.username.like("a%"));
+        assertRejected(member.username.like("%b"), PredicateCostGuard.Reason.LEADING_WILDCARD);
+    }
+
+    @Test
+    public void subQuery() {
+        assertRejected(member.id.in(JPAExpressions.select(member.id).from(member)),
+                PredicateCostGuard.Reason.UNSUPPORTED);
+    }
+
+    private void assertRejected(Predicate predicate, PredicateCostGuard.Reason reason) {
+        assertThatThrownBy(() -> predicateCostGuard.check(predicate))
+                .isInstanceOf(PredicateTooExpensiveException.class)
+                .extracting("reason").isEqualTo(reason);
+    }
+}
@@ -0,0 +1,66 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// count 쿼리 메타데이터만 확인하므로 EntityManager 없이 만든다
+class QuerydslCountQueryTest {
+
+    @Test
+    public void unusedLeftJoinDropped(){
+        JPAQuery<?> content = new JPAQuery<Void>()
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.age.goe(30))
+                .orderBy(member.username.asc());
+
+        QueryMetadata count = QuerydslCountQuery.countMetadata(content.getMetadata(), true);
+
+        assertEquals(1, count.getJoins().size());
+        assertEquals(member, count.getJoins().get(0).getTarget());
+        assertThat(count.getOrderBy()).isEmpty();
+    }
+
+    @Test
+    public void referencedLeftJoinKept(){
+        JPAQuery<?> content = new JPAQuery<Void>()
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA"));
+
+        QueryMetadata count = QuerydslCountQuery.countMetadata(content.getMetadata(), true);
+
+        List<JoinExpression> joins = count.getJoins();
+        assertEquals(2, joins.size());
+        // fetch join 은 일반 join 으로 바뀐다
+        assertThat(joins.get(1).getFlags()).isEmpty();
+    }
+
+    @Test
+    public void groupByJoinKept(){
+        JPAQuery<?> content = new JPAQuery<Void>()
+                .select(team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name);
+
+        QueryMetadata withGroupBy = QuerydslCountQuery.countMetadata(content.getMetadata(), true);
+        QueryMetadata withoutGroupBy = QuerydslCountQuery.countMetadata(content.getMetadata(), false);
+
+        assertEquals(2, withGroupBy.getJoins().size());
+        assertEquals(List.of(team.name), withGroupBy.getGroupBy());
+        assertEquals(2, withoutGroupBy.getJoins().size());
+        assertThat(withoutGroupBy.getGroupBy()).isEmpty();
+    }
+}
@@ -0,0 +1,167 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.codec.MemberColumnsCodec;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+// chunk 3 건, buffer 64 바이트로 chunk 경계와 buffer 비우기를 여러번 거치게 한다
+// export 는 chunk 마다 새 트랜잭션에서 읽으므로 데이터를 커밋하고 끝나면 지운다
+@SpringBootTest(properties = {"member.export.chunk-size=3", "member.export.buffer-size=64"})
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberExportService memberExportService;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("team,\"B\"");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+            em.persist(new Member("noTeam", 50));
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void exportCsv() throws IOException {
+        Path target = dir.resolve("members.csv");
+
+        ExportReport report = memberExportService.export(target, ExportFormat.CSV);
+
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assertEquals(report.getRows(), 11);
+        assertEquals(report.getBytes(), Files.size(target));
+        assertFalse(report.isResumed());
+        assertEquals(lines.size(), 12);
+        assertEquals(lines.get(0), "memberId,username,age,teamId,teamName");
+        assertThat(lines.get(2)).endsWith(",member1,1," + teamIdOf("member1") + ",\"team,\"\"B\"\"\"");
+        assertThat(lines.get(11)).endsWith(",noTeam,50,,");
+        // 끝까지 받으면 checkpoint 는 지운다
+        assertFalse(Files.exists(ExportCheckpoint.pathOf(target)));
+    }
+
+    @Test
+    public void resumeAfterInterruptedChunk() throws IOException {
+        Path expectedFile = dir.resolve("expected.csv");
+        memberExportService.export(expectedFile, ExportFormat.CSV);
+        List<String> expected = Files.readAllLines(expectedFile, StandardCharsets.UTF_8);
+
+        // 헤더와 첫 chunk(3 건)까지 checkpoint 를 남기고, 다음 chunk 를 쓰다가 끊긴 파일
+        Path target = dir.resolve("members.csv");
+        String committed = String.join("\n", expected.subList(0, 4)) + "\n";
+        Files.write(target, (committed + expected.get(4).substring(0, 5)).getBytes(StandardCharsets.UTF_8));
+        long lastMemberId = Long.parseLong(expected.get(3).split(",")[0]);
+        new ExportCheckpoint(ExportFormat.CSV, lastMemberId, committed.getBytes(StandardCharsets.UTF_8).length)
+                .write(target);
+
+        ExportReport report = memberExportService.export(target, ExportFormat.CSV);
+
+        assertTrue(report.isResumed());
+        assertEquals(report.getRows(), 8);
+        assertEquals(Files.readAllLines(target, StandardCharsets.UTF_8), expected);
+        assertFalse(Files.exists(ExportCheckpoint.pathOf(target)));
+    }
+
+    @Test
+    public void resumeWithDifferentFormat() throws IOException {
+        Path target = dir.resolve("members.bin");
+        new ExportCheckpoint(ExportFormat.CSV, 1L, 10).write(target);
+
+        assertThatThrownBy(() -> memberExportService.export(target, ExportFormat.COLUMNS))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void exportColumns() throws IOException {
+        Path target = dir.resolve("members.bin");
+
+        memberExportService.export(target, ExportFormat.COLUMNS);
+
+        // chunk 마다 { int 길이, MemberColumnsCodec 블록 }
+        List<MemberTeamDto> decoded = new ArrayList<>();
+        int blocks = 0;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(target))) {
+            while (in.available() > 0) {
+                byte[] block = new byte[in.readInt()];
+                in.readFully(block);
+                decoded.addAll(MemberColumnsCodec.decode(new ByteArrayInputStream(block)));
+                blocks++;
+            }
+        }
+        assertEquals(blocks, 4);
+        assertThat(decoded).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(new MemberSearchCondition()));
+    }
+
+    @Test
+    public void exportInsideCallerTransaction() throws IOException {
+        Path target = dir.resolve("members.csv");
+
+        // chunk 는 호출한 트랜잭션에 참여하지 않으므로 커밋되지 않은 회원은 보이지 않는다
+        ExportReport report = tx.execute(status -> {
+            em.persist(new Member("uncommitted", 60));
+            em.flush();
+            try {
+                return memberExportService.export(target, ExportFormat.CSV);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        assertEquals(11, report.getRows());
+        assertThat(Files.readAllLines(target, StandardCharsets.UTF_8)).noneMatch(line -> line.contains("uncommitted"));
+    }
+
+    private Long teamIdOf(String username) {
+        return tx.execute(status -> memberJpaRepository.findByUsername(username).get(0).getTeam().getId());
+    }
+}
@@ -0,0 +1,72 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ingest 는 자기 트랜잭션에서 커밋하므로 테스트 트랜잭션 대신 끝나면 지운다
+@SpringBootTest(properties = "member.ingest.batch-size=7")
+class MemberIngestServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberIngestService memberIngestService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void ingest(){
+        Team teamA = new Team("teamA");
+
+        IngestReport report = memberIngestService.ingest(IntStream.range(0, 50).mapToObj(i -> {
+            Member member = new Member("member" + i, i);
+            member.setTeam(teamA);
+            return member;
+        }));
+
+        assertEquals(50, report.getRows());
+        assertNotNull(teamA.getId());
+
+        Long count = new TransactionTemplate(transactionManager).execute(status -> em
+                .createQuery("select count(m) from Member m where m.team.name = 'teamA'", Long.class)
+                .getSingleResult());
+        assertEquals(50, count);
+    }
+
+    @Test
+    public void ingestKeepsCallerPersistenceContext(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member caller = new Member("caller", 10);
+            em.persist(caller);
+
+            memberIngestService.ingest(IntStream.range(0, 10).mapToObj(i -> new Member("member" + i, i)));
+
+            // ingest 의 flush/clear 는 별도 영속성 컨텍스트에서 일어난다
+            assertTrue(em.contains(caller));
+        });
+
+        Long count = new TransactionTemplate(transactionManager).execute(status -> em
+                .createQuery("select count(m) from Member m", Long.class)
+                .getSingleResult());
+        assertEquals(11, count);
+    }
+}
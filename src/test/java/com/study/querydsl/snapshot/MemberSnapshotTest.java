@@ -0,0 +1,183 @@
+package com.study.querydsl.snapshot;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 변경 이벤트는 커밋 이후에 오므로 데이터를 커밋하고 끝나면 지운다. 반영은 refresh() 를 직접 호출한다
+@SpringBootTest(properties = {
+        "querydsl.snapshot.enabled=true",
+        "querydsl.snapshot.refresh-interval-ms=3600000",
+        "querydsl.snapshot.max-staleness-ms=" + MemberSnapshotTest.MAX_STALENESS_MS
+})
+class MemberSnapshotTest {
+
+    static final long MAX_STALENESS_MS = 300;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberSnapshot memberSnapshot;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for(int i=0;i<10;i++){
+                em.persist(new Member("member"+i, i*10, i%2==0 ? teamA : teamB));
+            }
+            em.persist(new Member("noTeam", 50));
+        });
+        memberSnapshot.refresh();
+    }
+
+    @AfterEach
+    public void after(){
+        // bulk delete 는 전체 다시 읽기를 요청한다
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+        memberSnapshot.refresh();
+    }
+
+    @Test
+    public void sameResultAsRepository(){
+        assertFalse(memberSnapshot.isStale());
+        for(int shape=0;shape<16;shape++){
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if((shape & 1) != 0){
+                condition.setUsername("member4");
+            }
+            if((shape & 2) != 0){
+                condition.setTeamName("teamA");
+            }
+            if((shape & 4) != 0){
+                condition.setAgeGoe(20);
+            }
+            if((shape & 8) != 0){
+                condition.setAgeLoe(60);
+            }
+
+            List<MemberTeamDto> expected = memberJpaRepository.search(condition);
+
+            assertThat(memberSnapshot.search(condition)).as(condition.toString())
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void unknownValue(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamZ");
+
+        assertThat(memberSnapshot.search(condition)).isEmpty();
+    }
+
+    @Test
+    public void staleUntilRefresh() throws InterruptedException {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member10");
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = queryFactory.selectFrom(team).where(team.name.eq("teamA")).fetchOne();
+            em.persist(new Member("member10", 100, teamA));
+        });
+
+        // 허용 시간 안에서는 반영 전 스냅샷을 쓰고, 지나면 DB 를 조회한다
+        assertTrue(memberSnapshot.isStale());
+        assertThat(memberSnapshot.search(condition)).isEmpty();
+        Thread.sleep(MAX_STALENESS_MS);
+        assertThat(memberSnapshot.search(condition)).extracting("username").containsExactly("member10");
+
+        memberSnapshot.refresh();
+
+        assertFalse(memberSnapshot.isStale());
+        assertThat(memberSnapshot.search(condition)).extracting("teamName").containsExactly("teamA");
+    }
+
+    @Test
+    public void teamRenameRefreshesMembers(){
+        tx.executeWithoutResult(status ->
+                queryFactory.selectFrom(team).where(team.name.eq("teamB")).fetchOne().setName("teamC"));
+        memberSnapshot.refresh();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+
+        assertFalse(memberSnapshot.isStale());
+        assertThat(memberSnapshot.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member3", "member5", "member7", "member9");
+    }
+
+    @Test
+    public void patchedRowsReplaceOldOnes(){
+        tx.executeWithoutResult(status -> {
+            em.remove(queryFactory.selectFrom(member).where(member.username.eq("noTeam")).fetchOne());
+            em.persist(new Member("member10", 100));
+        });
+        memberSnapshot.refresh();
+        // 여러번 바꿔서 지워진 row 가 1/4 을 넘으면 compact 된다
+        for(int round=0;round<5;round++){
+            int age = 1000 + round;
+            tx.executeWithoutResult(status -> queryFactory.selectFrom(member)
+                    .where(member.username.in("member0", "member1", "member2"))
+                    .fetch()
+                    .forEach(m -> m.setAge(age)));
+            memberSnapshot.refresh();
+        }
+        assertFalse(memberSnapshot.isStale());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1000);
+        assertThat(memberSnapshot.search(condition)).extracting("age").containsExactly(1004, 1004, 1004);
+        MemberSearchCondition all = new MemberSearchCondition();
+        assertThat(memberSnapshot.search(all))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(all));
+    }
+
+    @Test
+    public void bulkUpdateReloads(){
+        tx.executeWithoutResult(status -> queryFactory.update(member).set(member.age, member.age.add(1)).execute());
+        assertTrue(memberSnapshot.isStale());
+
+        memberSnapshot.refresh();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member0");
+        assertThat(memberSnapshot.search(condition)).extracting("age").containsExactly(1);
+    }
+}